@@ -0,0 +1,21 @@
+import java.util.concurrent.CancellationException;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Cooperative cancellation for long-running graph computations. Engines take a token, a
+ * BooleanSupplier that turns true once their caller gives up, and poll it every few thousand steps.
+ * Callers that never cancel pass NEVER, so an interrupt meant for something else cannot stop them.
+ */
+final class Cancellation {
+    static final BooleanSupplier NEVER = () -> false;
+
+    private Cancellation() {
+    }
+
+    // Throws CancellationException if the token says the computation was cancelled
+    static void check(BooleanSupplier cancelled) {
+        if (cancelled.getAsBoolean()) {
+            throw new CancellationException();
+        }
+    }
+}
@@ -0,0 +1,179 @@
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Graph for one or more writers (e.g. a provisioning feed) running next to many concurrent readers.
+ * Writers append to a private GraphCore under a lock; that is the delta. A background compactor
+ * merges the delta into the previous generation's CSR adjacency and publishes the new immutable
+ * generation through an AtomicReference; its MST is only listed when first asked for. Readers take
+ * the current generation without locking and query a consistent snapshot, while writes keep flowing
+ * into the next one.
+ * A reader that must see its own writes passes the sequence number addEdge returned to
+ * snapshotIncluding, which compacts on demand if the background compactor has not caught up yet.
+ */
+final class ConcurrentGraph implements AutoCloseable {
+    private final Object writeLock = new Object();
+    private final GraphCore core = new GraphCore(); // Guarded by writeLock
+    private final Object compactLock = new Object(); // One compaction at a time
+    private final AtomicReference<Snapshot> current;
+    private final ScheduledExecutorService compactor;
+
+    private final LongAdder writes = new LongAdder();
+    private final LongAdder reads = new LongAdder();
+    private final LongAdder compactions = new LongAdder();
+    private final LongAdder compactionNanos = new LongAdder();
+    private final long startTime = System.nanoTime();
+
+    /**
+     * @param compactEveryMillis How often the background compactor publishes pending writes.
+     */
+    ConcurrentGraph(long compactEveryMillis) {
+        current = new AtomicReference<>(new Snapshot(this, 0, core.snapshot(), null));
+        compactor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "graph-compactor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        compactor.scheduleWithFixedDelay(this::compact, compactEveryMillis, compactEveryMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Appends a connection. It becomes visible to readers with the next generation.
+     *
+     * @return Sequence number of this write, for snapshotIncluding.
+     */
+    long addEdge(String node1, String node2, int cost, int bandwidth) {
+        long sequence;
+        synchronized (writeLock) {
+            sequence = core.addEdge(node1, node2, cost, bandwidth) + 1L;
+        }
+        writes.increment();
+        return sequence;
+    }
+
+    // Latest published generation; never blocks
+    Snapshot snapshot() {
+        return current.get();
+    }
+
+    /**
+     * Returns a generation that contains the write with the given sequence number, compacting right
+     * away if the latest one does not contain it yet.
+     */
+    Snapshot snapshotIncluding(long sequence) {
+        Snapshot snapshot = current.get();
+        return snapshot.sequence >= sequence ? snapshot : compact();
+    }
+
+    /**
+     * Publishes all writes made so far as a new generation, unless there are none.
+     *
+     * @return The latest generation.
+     */
+    Snapshot compact() {
+        synchronized (compactLock) {
+            GraphCore copy;
+            long sequence;
+            synchronized (writeLock) {
+                sequence = core.edgeCount();
+                if (sequence == current.get().sequence) return current.get();
+                copy = core.snapshot(); // O(1): it shares the id map, the edge columns and the MST arrays
+            }
+            long start = System.nanoTime();
+            Snapshot next = new Snapshot(this, sequence, copy, current.get()); // Builds the CSR outside the write lock
+            current.set(next);
+            compactions.increment();
+            compactionNanos.add(System.nanoTime() - start);
+            return next;
+        }
+    }
+
+    // Write and query rates since construction, plus compaction cost
+    String throughput() {
+        double seconds = Math.max(1e-9, (System.nanoTime() - startTime) / 1e9);
+        long generations = compactions.sum();
+        return String.format("writes: %d (%.0f/s), queries: %d (%.0f/s), generations: %d (avg %.1f ms), lag: %d edges",
+                writes.sum(), writes.sum() / seconds, reads.sum(), reads.sum() / seconds, generations,
+                generations == 0 ? 0.0 : compactionNanos.sum() / 1e6 / generations, pendingWrites());
+    }
+
+    // Writes not yet visible to readers of the latest generation
+    long pendingWrites() {
+        return writes.sum() - current.get().sequence;
+    }
+
+    @Override
+    public void close() {
+        compactor.shutdownNow();
+    }
+
+    /**
+     * One immutable generation of the graph. Safe to query from any number of threads.
+     */
+    static final class Snapshot {
+        final long sequence; // Number of writes included
+        private final ConcurrentGraph owner;
+        private final GraphCore core; // Read-only copy; its MST engine is only used under the snapshot's lock
+        private final CsrGraph csr;
+        private volatile List<Edge> mst; // Listed on first use
+        // Idle search states over this generation's CSR; they go away with the generation
+        private final ConcurrentLinkedDeque<PathEngine> engines = new ConcurrentLinkedDeque<>();
+
+        private Snapshot(ConcurrentGraph owner, long sequence, GraphCore core, Snapshot previous) {
+            this.owner = owner;
+            this.sequence = sequence;
+            this.core = core;
+            this.csr = core.csr(previous == null ? null : previous.csr);
+        }
+
+        List<Edge> findMinimumSpanningTree() {
+            owner.reads.increment();
+            List<Edge> tree = mst;
+            if (tree == null) {
+                synchronized (this) {
+                    tree = mst;
+                    if (tree == null) {
+                        List<Edge> edges = new ArrayList<>();
+                        for (int e : core.minimumSpanningTree()) {
+                            edges.add(new Edge(csr.names[csr.edgeFrom[e]], csr.names[csr.edgeTo[e]], csr.edgeCost[e],
+                                    csr.edgeBandwidth[e]));
+                        }
+                        mst = tree = Collections.unmodifiableList(edges);
+                    }
+                }
+            }
+            return tree;
+        }
+
+        int findShortestPath(String start, String end) {
+            PathResult path = shortestPath(start, end);
+            return path.exists() ? (int) path.distance : -1;
+        }
+
+        // Node names along a cheapest path from start to end, or an empty list if there is none
+        List<String> findShortestRoute(String start, String end) {
+            return start.equals(end) ? List.of(start) : shortestPath(start, end).names(csr);
+        }
+
+        private PathResult shortestPath(String start, String end) {
+            owner.reads.increment();
+            if (start.equals(end))
+                return new PathResult(0, new int[0]);
+            int source = core.id(start);
+            int target = core.id(end);
+            if (source < 0 || target < 0)
+                return PathResult.NONE; // Unknown node
+            PathEngine engine = engines.pollFirst(); // Most recently used first, while its arrays are warm
+            if (engine == null) {
+                engine = new PathEngine(csr);
+            }
+            try {
+                return engine.shortestPath(source, target);
+            } finally {
+                engines.offerFirst(engine);
+            }
+        }
+    }
+}
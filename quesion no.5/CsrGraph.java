@@ -0,0 +1,117 @@
+import java.util.*;
+
+/**
+ * Immutable integer-indexed view of the network in compressed sparse row form.
+ * Node ids are dense ints (names[id] is the node's name). Each undirected connection is stored once
+ * in the edge columns and twice in the adjacency: the half-edges of node u are the indexes
+ * offsets[u] .. offsets[u + 1] into targets, costs, bandwidths and edgeIds.
+ */
+final class CsrGraph {
+    final int nodeCount;
+    final String[] names;
+    final int edgeCount;
+    final int[] edgeFrom, edgeTo, edgeCost, edgeBandwidth; // Canonical undirected edges, by edge id
+
+    final int[] offsets;
+    final int[] targets;
+    final int[] costs;
+    final int[] bandwidths;
+    final int[] edgeIds; // Undirected edge id of each half-edge
+
+    // Adds the adjacency of the edges previous does not have to a copy of previous's; with no previous, of all edges
+    private CsrGraph(CsrGraph previous, int nodeCount, String[] names, int edgeCount, int[] edgeFrom, int[] edgeTo,
+                     int[] edgeCost, int[] edgeBandwidth) {
+        this.nodeCount = nodeCount;
+        this.names = names;
+        this.edgeCount = edgeCount;
+        this.edgeFrom = edgeFrom;
+        this.edgeTo = edgeTo;
+        this.edgeCost = edgeCost;
+        this.edgeBandwidth = edgeBandwidth;
+        int first = previous == null ? 0 : previous.edgeCount;
+        int known = previous == null ? 0 : previous.nodeCount;
+
+        // added[u]: half-edges of u among the new edges
+        int[] added = new int[nodeCount];
+        for (int e = first; e < edgeCount; e++) {
+            added[edgeFrom[e]]++;
+            added[edgeTo[e]]++;
+        }
+        offsets = new int[nodeCount + 1];
+        for (int u = 0; u < nodeCount; u++) {
+            int old = u < known ? previous.offsets[u + 1] - previous.offsets[u] : 0;
+            offsets[u + 1] = offsets[u] + old + added[u];
+        }
+        targets = new int[2 * edgeCount];
+        costs = new int[2 * edgeCount];
+        bandwidths = new int[2 * edgeCount];
+        edgeIds = new int[2 * edgeCount];
+
+        // A node's old half-edges keep their order and the new ones follow, as in a build from scratch.
+        // Runs of nodes without new edges move by the same shift, so each run is copied as one block.
+        int runStart = 0;
+        for (int u = 0; u < known; u++) {
+            if (added[u] > 0 || u == known - 1) {
+                copyHalfEdges(previous, previous.offsets[runStart], offsets[runStart],
+                        previous.offsets[u + 1] - previous.offsets[runStart]);
+                runStart = u + 1;
+            }
+        }
+        int[] fill = new int[nodeCount];
+        for (int u = 0; u < nodeCount; u++) {
+            fill[u] = offsets[u + 1] - added[u];
+        }
+        for (int e = first; e < edgeCount; e++) {
+            int a = edgeFrom[e], b = edgeTo[e];
+            int i = fill[a]++;
+            targets[i] = b;
+            costs[i] = edgeCost[e];
+            bandwidths[i] = edgeBandwidth[e];
+            edgeIds[i] = e;
+            int j = fill[b]++;
+            targets[j] = a;
+            costs[j] = edgeCost[e];
+            bandwidths[j] = edgeBandwidth[e];
+            edgeIds[j] = e;
+        }
+    }
+
+    private void copyHalfEdges(CsrGraph from, int fromIndex, int toIndex, int count) {
+        System.arraycopy(from.targets, fromIndex, targets, toIndex, count);
+        System.arraycopy(from.costs, fromIndex, costs, toIndex, count);
+        System.arraycopy(from.bandwidths, fromIndex, bandwidths, toIndex, count);
+        System.arraycopy(from.edgeIds, fromIndex, edgeIds, toIndex, count);
+    }
+
+    /**
+     * Builds the adjacency for the first edgeCount edges of the given columns. The arrays are shared,
+     * not copied, so the caller must never change entries below nodeCount / edgeCount afterwards.
+     */
+    static CsrGraph build(int nodeCount, String[] names, int edgeCount, int[] edgeFrom, int[] edgeTo,
+                          int[] edgeCost, int[] edgeBandwidth) {
+        return new CsrGraph(null, nodeCount, names, edgeCount, edgeFrom, edgeTo, edgeCost, edgeBandwidth);
+    }
+
+    /**
+     * Like build, but starts from the CSR of an earlier state of the same columns, whose nodes and
+     * edges are a prefix of these, and only scatters the edges added since. The result is the same
+     * as a build from scratch.
+     */
+    static CsrGraph extend(CsrGraph previous, int nodeCount, String[] names, int edgeCount, int[] edgeFrom,
+                           int[] edgeTo, int[] edgeCost, int[] edgeBandwidth) {
+        if (previous.nodeCount > nodeCount || previous.edgeCount > edgeCount) {
+            throw new IllegalArgumentException("previous is not an earlier state of these columns");
+        }
+        return new CsrGraph(previous, nodeCount, names, edgeCount, edgeFrom, edgeTo, edgeCost, edgeBandwidth);
+    }
+
+    // Kruskal's algorithm over all edges, stopping once V - 1 edges are chosen
+    int[] minimumSpanningTree() {
+        int[] edges = new int[edgeCount];
+        for (int e = 0; e < edgeCount; e++) {
+            edges[e] = e;
+        }
+        return MstEngine.kruskal(nodeCount, edges, edgeCount, edgeFrom, edgeTo, edgeCost, Math.max(0, nodeCount - 1),
+                Cancellation.NEVER);
+    }
+}
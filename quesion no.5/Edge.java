@@ -0,0 +1,11 @@
+class Edge {
+    String node1, node2;
+    int cost, bandwidth;
+
+    public Edge(String node1, String node2, int cost, int bandwidth) {
+        this.node1 = node1;
+        this.node2 = node2;
+        this.cost = cost;
+        this.bandwidth = bandwidth;
+    }
+}
@@ -0,0 +1,43 @@
+import java.util.*;
+
+/**
+ * Connections to add in bulk, with node names interned to batch-local ids so Graph.addAll looks each
+ * name up once instead of once per connection.
+ */
+final class EdgeBatch {
+    private final Map<String, Integer> ids = new HashMap<>();
+    String[] names = new String[16];
+    int nodeCount;
+
+    int[] from = new int[16];
+    int[] to = new int[16];
+    int[] cost = new int[16];
+    int[] bandwidth = new int[16];
+    int size;
+
+    void add(String node1, String node2, int cost, int bandwidth) {
+        if (size == from.length) {
+            int capacity = size * 2;
+            from = Arrays.copyOf(from, capacity);
+            to = Arrays.copyOf(to, capacity);
+            this.cost = Arrays.copyOf(this.cost, capacity);
+            this.bandwidth = Arrays.copyOf(this.bandwidth, capacity);
+        }
+        from[size] = intern(node1);
+        to[size] = intern(node2);
+        this.cost[size] = cost;
+        this.bandwidth[size] = bandwidth;
+        size++;
+    }
+
+    private int intern(String name) {
+        Integer id = ids.get(name);
+        if (id != null) return id;
+        if (nodeCount == names.length) {
+            names = Arrays.copyOf(names, nodeCount * 2);
+        }
+        names[nodeCount] = name;
+        ids.put(name, nodeCount);
+        return nodeCount++;
+    }
+}
@@ -0,0 +1,138 @@
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+/**
+ * Streams an edge-list file into an EdgeBatch.
+ * Each line is "node1 node2 cost bandwidth" separated by spaces or tabs; blank lines and lines
+ * starting with # are skipped. The file is read through a FileChannel into a reused byte buffer and
+ * parsed in place: no readLine, no split, no regex, and only the node names become Strings.
+ */
+final class EdgeListImporter {
+    private static final int BUFFER_SIZE = 1 << 20;
+    private static final long PROGRESS_STEP = 64L << 20; // Report progress every 64 MB
+
+    private final EdgeBatch batch = new EdgeBatch();
+    private final String[] fields = new String[2];
+    private final int[] numbers = new int[2];
+    private long lineNumber;
+
+    private EdgeListImporter() {
+    }
+
+    /**
+     * Reads all connections of an edge-list file.
+     *
+     * @param file     File to read.
+     * @param progress Receives status messages while the file is read; may be called from this thread only.
+     * @param cancelled Polled after every buffer; CancellationException is thrown once it is true.
+     * @return The connections in file order.
+     * @throws IOException If the file cannot be read or a line is malformed.
+     */
+    static EdgeBatch read(Path file, Consumer<String> progress, BooleanSupplier cancelled) throws IOException {
+        EdgeListImporter importer = new EdgeListImporter();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long nextReport = PROGRESS_STEP;
+            ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+            byte[] bytes = buffer.array();
+            long read = 0;
+            int n;
+            while ((n = channel.read(buffer)) >= 0) {
+                Cancellation.check(cancelled);
+                read += n;
+                // Parse the complete lines and move the partial last one to the front
+                int end = buffer.position();
+                int consumed = importer.parseLines(bytes, end);
+                if (consumed == 0 && end == bytes.length) {
+                    throw new IOException("Line " + (importer.lineNumber + 1) + " is longer than " + BUFFER_SIZE + " bytes");
+                }
+                System.arraycopy(bytes, consumed, bytes, 0, end - consumed);
+                buffer.position(end - consumed);
+                if (read >= nextReport) {
+                    progress.accept("Read " + (read >> 20) + " of " + (size >> 20) + " MB");
+                    nextReport += PROGRESS_STEP;
+                }
+            }
+            if (buffer.position() > 0) {
+                importer.parseLine(bytes, 0, buffer.position()); // Last line without a newline
+            }
+        }
+        return importer.batch;
+    }
+
+    // Parses every complete line in bytes[0, end) and returns the index after the last newline
+    private int parseLines(byte[] bytes, int end) throws IOException {
+        int start = 0;
+        for (int i = 0; i < end; i++) {
+            if (bytes[i] == '\n') {
+                parseLine(bytes, start, i);
+                start = i + 1;
+            }
+        }
+        return start;
+    }
+
+    private void parseLine(byte[] bytes, int from, int to) throws IOException {
+        lineNumber++;
+        if (to > from && bytes[to - 1] == '\r') to--;
+        int i = skipBlanks(bytes, from, to);
+        if (i == to || bytes[i] == '#') return;
+
+        for (int f = 0; f < 4; f++) {
+            if (i == to) {
+                throw new IOException("Line " + lineNumber + ": expected node1 node2 cost bandwidth");
+            }
+            int start = i;
+            while (i < to && bytes[i] != ' ' && bytes[i] != '\t') i++;
+            if (f < 2) {
+                fields[f] = decode(bytes, start, i);
+            } else {
+                numbers[f - 2] = parseInt(bytes, start, i);
+            }
+            i = skipBlanks(bytes, i, to);
+        }
+        if (i != to) {
+            throw new IOException("Line " + lineNumber + ": unexpected text after bandwidth");
+        }
+        batch.add(fields[0], fields[1], numbers[0], numbers[1]);
+    }
+
+    private static int skipBlanks(byte[] bytes, int i, int to) {
+        while (i < to && (bytes[i] == ' ' || bytes[i] == '\t')) i++;
+        return i;
+    }
+
+    // ASCII names skip the UTF-8 decoder
+    private static String decode(byte[] bytes, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (bytes[i] < 0) return new String(bytes, from, to - from, StandardCharsets.UTF_8);
+        }
+        return new String(bytes, from, to - from, StandardCharsets.ISO_8859_1);
+    }
+
+    private int parseInt(byte[] bytes, int from, int to) throws IOException {
+        boolean negative = bytes[from] == '-';
+        int i = negative || bytes[from] == '+' ? from + 1 : from;
+        if (i == to) throw new IOException("Line " + lineNumber + ": bad number");
+        long value = 0;
+        for (; i < to; i++) {
+            int digit = bytes[i] - '0';
+            if (digit < 0 || digit > 9 || value > Integer.MAX_VALUE) {
+                throw new IOException("Line " + lineNumber + ": bad number "
+                        + new String(bytes, from, to - from, StandardCharsets.UTF_8));
+            }
+            value = value * 10 + digit;
+        }
+        value = negative ? -value : value;
+        if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+            throw new IOException("Line " + lineNumber + ": number out of range");
+        }
+        return (int) value;
+    }
+}
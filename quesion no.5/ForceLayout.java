@@ -0,0 +1,251 @@
+import java.util.*;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Force-directed node placement (Fruchterman-Reingold) with Barnes-Hut approximation.
+ * Connected nodes attract like springs and all nodes repel each other. Repulsion is the expensive
+ * part: a quadtree over the nodes lets a far-away cell act as one body at its center of mass, so an
+ * iteration costs O(n log n) instead of O(n^2). The tree lives in flat arrays reused across
+ * iterations, so a run allocates nothing per node visit.
+ */
+final class ForceLayout {
+    static final float EDGE_LENGTH = 150;    // Ideal distance between connected nodes
+    private static final float THETA = 0.9f; // Cells smaller than THETA * distance count as one body
+    private static final float MIN_CELL = 1e-3f;
+
+    private final CsrGraph graph;
+    private final BooleanSupplier cancelled;
+    private final float[] x, y;
+    private final float[] dx, dy; // Displacement of the current iteration
+
+    // Quadtree cells; the four children of a split cell are stored next to each other
+    private float[] cellX, cellY, cellSize; // Lower-left corner and side length
+    private float[] sumX, sumY;             // Sum of body positions, for the center of mass
+    private int[] mass;                     // Number of bodies in the cell
+    private int[] firstChild;               // Index of the first child, or -1 for a leaf
+    private int[] body;                     // Leaf's single body, -1 if empty, -2 if several coincide
+    private int[] onPath;                   // Node whose insertion path runs through the cell, during repel
+    private int cellCount;
+    private int[] stack = new int[64];
+
+    private ForceLayout(CsrGraph graph, float[] x, float[] y, BooleanSupplier cancelled) {
+        this.graph = graph;
+        this.cancelled = cancelled;
+        this.x = x;
+        this.y = y;
+        this.dx = new float[x.length];
+        this.dy = new float[x.length];
+        int capacity = Math.max(16, 4 * x.length);
+        cellX = new float[capacity];
+        cellY = new float[capacity];
+        cellSize = new float[capacity];
+        sumX = new float[capacity];
+        sumY = new float[capacity];
+        mass = new int[capacity];
+        firstChild = new int[capacity];
+        body = new int[capacity];
+        onPath = new int[capacity];
+    }
+
+    /**
+     * Computes node positions, starting from a previous layout so nodes keep their place when the
+     * graph grows. New nodes start next to an already placed neighbor, or on a spiral.
+     *
+     * @param graph    Graph to lay out.
+     * @param previous Positions of an earlier version of the graph, or null.
+     * @param cancelled Polled once per iteration; CancellationException is thrown once it is true.
+     * @return Positions as {x, y} arrays indexed by node id.
+     */
+    static float[][] compute(CsrGraph graph, GraphLayout previous, BooleanSupplier cancelled) {
+        int n = graph.nodeCount;
+        float[] x = new float[n], y = new float[n];
+        int known = previous == null ? 0 : Math.min(previous.nodeCount(), n);
+        for (int v = 0; v < known; v++) {
+            x[v] = previous.x(v);
+            y[v] = previous.y(v);
+        }
+        for (int v = known; v < n; v++) {
+            double angle = v * 2.399963; // Golden angle, so neighbors of one node fan out evenly
+            int anchor = -1;
+            for (int h = graph.offsets[v]; h < graph.offsets[v + 1]; h++) {
+                if (graph.targets[h] < v) {
+                    anchor = graph.targets[h];
+                    break;
+                }
+            }
+            double radius = anchor >= 0 ? EDGE_LENGTH : EDGE_LENGTH * Math.sqrt(v);
+            x[v] = (anchor >= 0 ? x[anchor] : 0) + (float) (radius * Math.cos(angle));
+            y[v] = (anchor >= 0 ? y[anchor] : 0) + (float) (radius * Math.sin(angle));
+        }
+
+        // Fewer, gentler iterations when most nodes already have a settled position
+        int iterations = Math.max(30, Math.min(300, 3_000_000 / Math.max(1, n)));
+        float temperature = EDGE_LENGTH * (known * 2 >= n ? 0.3f : 10);
+        new ForceLayout(graph, x, y, cancelled).run(iterations, temperature);
+        return new float[][] {x, y};
+    }
+
+    private void run(int iterations, float startTemperature) {
+        int n = x.length;
+        float k2 = EDGE_LENGTH * EDGE_LENGTH;
+        for (int iteration = 0; iteration < iterations; iteration++) {
+            Cancellation.check(cancelled);
+            buildTree();
+            for (int v = 0; v < n; v++) {
+                repel(v, k2);
+            }
+            for (int e = 0; e < graph.edgeCount; e++) {
+                int a = graph.edgeFrom[e], b = graph.edgeTo[e];
+                float ex = x[a] - x[b], ey = y[a] - y[b];
+                float d = (float) Math.sqrt(ex * ex + ey * ey);
+                if (d < 1e-3f) continue;
+                float pull = d / EDGE_LENGTH; // Attraction d^2 / k, times the unit vector
+                dx[a] -= ex * pull;
+                dy[a] -= ey * pull;
+                dx[b] += ex * pull;
+                dy[b] += ey * pull;
+            }
+
+            // Move each node along its displacement, capped by a linearly cooling temperature
+            float temperature = startTemperature * (1 - (float) iteration / iterations);
+            for (int v = 0; v < n; v++) {
+                float d = (float) Math.sqrt(dx[v] * dx[v] + dy[v] * dy[v]);
+                if (d > 0) {
+                    float step = Math.min(d, temperature) / d;
+                    x[v] += dx[v] * step;
+                    y[v] += dy[v] * step;
+                }
+                dx[v] = 0;
+                dy[v] = 0;
+            }
+        }
+    }
+
+    // Adds the Barnes-Hut approximation of every other node's repulsion k^2 / d to v's displacement
+    private void repel(int v, float k2) {
+        float px = x[v], py = y[v];
+        // Mark the cells that contain v, following the same choices as insert. Such a cell is never
+        // taken as one body, since v would push against its own share of the mass.
+        for (int c = 0; ; c = childFor(c, px, py)) {
+            onPath[c] = v;
+            if (firstChild[c] < 0) break;
+        }
+        int top = 0;
+        stack[top++] = 0;
+        while (top > 0) {
+            int c = stack[--top];
+            boolean leaf = firstChild[c] < 0;
+            int m = mass[c];
+            float sx = sumX[c], sy = sumY[c];
+            if (leaf && onPath[c] == v) {
+                // v's own leaf: only the other nodes stacked in it push
+                m--;
+                sx -= px;
+                sy -= py;
+            }
+            if (m == 0) continue;
+            float cx = sx / m, cy = sy / m;
+            float ex = px - cx, ey = py - cy;
+            float d2 = ex * ex + ey * ey;
+            if (leaf || (onPath[c] != v && cellSize[c] * cellSize[c] < THETA * THETA * d2)) {
+                if (d2 < 1e-2f) {
+                    // Coincident nodes: push apart in a direction derived from the id
+                    ex = (v & 1) == 0 ? 0.1f : -0.1f;
+                    ey = (v & 2) == 0 ? 0.1f : -0.1f;
+                    d2 = 0.02f;
+                }
+                float push = m * k2 / d2; // k^2 / d, times the unit vector ex / d
+                dx[v] += ex * push;
+                dy[v] += ey * push;
+            } else {
+                if (top + 4 > stack.length) {
+                    stack = Arrays.copyOf(stack, stack.length * 2);
+                }
+                for (int i = 0; i < 4; i++) {
+                    stack[top++] = firstChild[c] + i;
+                }
+            }
+        }
+    }
+
+    private void buildTree() {
+        float minX = Float.MAX_VALUE, minY = Float.MAX_VALUE, maxX = -Float.MAX_VALUE, maxY = -Float.MAX_VALUE;
+        for (int v = 0; v < x.length; v++) {
+            minX = Math.min(minX, x[v]);
+            minY = Math.min(minY, y[v]);
+            maxX = Math.max(maxX, x[v]);
+            maxY = Math.max(maxY, y[v]);
+        }
+        cellCount = 0;
+        newCell(minX, minY, Math.max(Math.max(maxX - minX, maxY - minY), 1) * 1.0001f);
+        for (int v = 0; v < x.length; v++) {
+            insert(v);
+        }
+    }
+
+    private void insert(int v) {
+        float px = x[v], py = y[v];
+        int c = 0;
+        while (true) {
+            mass[c]++;
+            sumX[c] += px;
+            sumY[c] += py;
+            if (firstChild[c] >= 0) {
+                c = childFor(c, px, py);
+            } else if (body[c] == -1) {
+                body[c] = v;
+                return;
+            } else if (cellSize[c] < MIN_CELL || body[c] == -2) {
+                body[c] = -2; // Too small to split further, keep the bodies together
+                return;
+            } else {
+                // Split the leaf and move its body down, then continue with v
+                int old = body[c];
+                body[c] = -1;
+                float half = cellSize[c] / 2;
+                firstChild[c] = cellCount;
+                newCell(cellX[c], cellY[c], half);
+                newCell(cellX[c] + half, cellY[c], half);
+                newCell(cellX[c], cellY[c] + half, half);
+                newCell(cellX[c] + half, cellY[c] + half, half);
+                int child = childFor(c, x[old], y[old]);
+                mass[child] = 1;
+                sumX[child] = x[old];
+                sumY[child] = y[old];
+                body[child] = old;
+                c = childFor(c, px, py);
+            }
+        }
+    }
+
+    private int childFor(int c, float px, float py) {
+        float half = cellSize[c] / 2;
+        int quadrant = (px >= cellX[c] + half ? 1 : 0) + (py >= cellY[c] + half ? 2 : 0);
+        return firstChild[c] + quadrant;
+    }
+
+    private void newCell(float left, float bottom, float size) {
+        if (cellCount == cellX.length) {
+            int capacity = cellCount * 2;
+            cellX = Arrays.copyOf(cellX, capacity);
+            cellY = Arrays.copyOf(cellY, capacity);
+            cellSize = Arrays.copyOf(cellSize, capacity);
+            sumX = Arrays.copyOf(sumX, capacity);
+            sumY = Arrays.copyOf(sumY, capacity);
+            mass = Arrays.copyOf(mass, capacity);
+            firstChild = Arrays.copyOf(firstChild, capacity);
+            body = Arrays.copyOf(body, capacity);
+            onPath = Arrays.copyOf(onPath, capacity);
+        }
+        int c = cellCount++;
+        cellX[c] = left;
+        cellY[c] = bottom;
+        cellSize[c] = size;
+        sumX[c] = 0;
+        sumY[c] = 0;
+        mass[c] = 0;
+        firstChild[c] = -1;
+        body[c] = -1;
+        onPath[c] = -1;
+    }
+}
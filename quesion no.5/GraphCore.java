@@ -0,0 +1,273 @@
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Writable network store behind the String-based Graph API.
+ * Node names are interned to dense int ids once; connections are appended to primitive columns,
+ * and the CSR view used by the algorithms is rebuilt lazily after edges were added.
+ * A core is confined to one thread; snapshot() hands a read-only copy to another thread.
+ */
+class GraphCore {
+    private static final int QUERY_CACHE_SIZE = 1024;
+
+    // Name -> id. Ids are only ever added, so snapshots share the map and ignore ids >= their nodeCount;
+    // it is concurrent because snapshots read it while the owner interns new names.
+    private final Map<String, Integer> ids;
+    private String[] names = new String[16];
+    private int nodeCount;
+
+    private int[] edgeFrom = new int[16];
+    private int[] edgeTo = new int[16];
+    private int[] edgeCost = new int[16];
+    private int[] edgeBandwidth = new int[16];
+    private int edgeCount;
+
+    private CsrGraph csr; // Null when edges were added since it was built
+    private PathEngine paths; // Shortest-path engine over csr, reused between queries
+    private RoutingEngine routing; // Bandwidth-aware routing over csr
+    private KShortestPaths kPaths; // Keeps the reverse shortest-path tree of its last target
+    private LandmarkIndex landmarks; // ALT index over csr, rebuilt lazily when landmarkCount > 0
+    private int landmarkCount;
+    private final MstEngine mst; // Minimum spanning forest, maintained on every addEdge
+    private final boolean readOnly;
+    private final BooleanSupplier cancelled; // Handed to every engine; only snapshots get a real token
+
+    // Recent answers keyed by (source << 32 | target), least recently used evicted first
+    private final Map<Long, PathResult> queryCache = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, PathResult> eldest) {
+            return size() > QUERY_CACHE_SIZE;
+        }
+    };
+
+    GraphCore() {
+        ids = new ConcurrentHashMap<>();
+        mst = new MstEngine();
+        readOnly = false;
+        cancelled = Cancellation.NEVER;
+    }
+
+    // Read-only copy; the id map and columns are shared, which is safe because the source only appends past
+    // nodeCount / edgeCount. A writable copy gets its own, since both cores would append into the same slots.
+    private GraphCore(GraphCore source, boolean readOnly, BooleanSupplier cancelled) {
+        nodeCount = source.nodeCount;
+        edgeCount = source.edgeCount;
+        if (readOnly) {
+            ids = source.ids;
+            names = source.names;
+            edgeFrom = source.edgeFrom;
+            edgeTo = source.edgeTo;
+            edgeCost = source.edgeCost;
+            edgeBandwidth = source.edgeBandwidth;
+            csr = source.csr;
+            mst = source.mst.view(cancelled);
+        } else {
+            ids = new ConcurrentHashMap<>();
+            for (int v = 0; v < nodeCount; v++) {
+                ids.put(source.names[v], v);
+            }
+            names = Arrays.copyOf(source.names, source.names.length);
+            edgeFrom = Arrays.copyOf(source.edgeFrom, source.edgeFrom.length);
+            edgeTo = Arrays.copyOf(source.edgeTo, source.edgeTo.length);
+            edgeCost = Arrays.copyOf(source.edgeCost, source.edgeCost.length);
+            edgeBandwidth = Arrays.copyOf(source.edgeBandwidth, source.edgeBandwidth.length);
+            mst = source.mst.copy(source.edgeFrom, source.edgeTo);
+        }
+        landmarkCount = source.landmarkCount;
+        this.readOnly = readOnly;
+        this.cancelled = cancelled;
+    }
+
+    /**
+     * Returns a read-only copy of the current network that another thread may query while this core
+     * keeps taking edges. It costs O(1): the id map, the edge columns and the MST arrays are shared.
+     */
+    GraphCore snapshot() {
+        return snapshot(Cancellation.NEVER);
+    }
+
+    /**
+     * Like snapshot(), but the copy's queries throw CancellationException once cancelled returns
+     * true, so a background task can give up on a long search.
+     */
+    GraphCore snapshot(BooleanSupplier cancelled) {
+        return new GraphCore(this, true, cancelled);
+    }
+
+    /**
+     * Returns a writable copy that shares nothing mutable with this core, so another thread can add
+     * a large batch to it while this core keeps changing. It costs O(nodes + edges).
+     */
+    GraphCore copy() {
+        return new GraphCore(this, false, Cancellation.NEVER);
+    }
+
+    /**
+     * Adds an undirected connection, creating its nodes if needed.
+     *
+     * @return The new edge's id.
+     */
+    int addEdge(String node1, String node2, int cost, int bandwidth) {
+        if (readOnly) {
+            throw new IllegalStateException("Cannot add edges to a snapshot");
+        }
+        int a = intern(node1);
+        int b = intern(node2);
+        ensureEdgeCapacity(edgeCount + 1);
+        edgeFrom[edgeCount] = a;
+        edgeTo[edgeCount] = b;
+        edgeCost[edgeCount] = cost;
+        edgeBandwidth[edgeCount] = bandwidth;
+        invalidate();
+        mst.add(edgeCount, nodeCount, edgeFrom, edgeTo, edgeCost);
+        return edgeCount++;
+    }
+
+    /**
+     * Adds many connections at once. Each distinct name is interned once, the columns grow once,
+     * and the MST is recomputed once at the end instead of being updated per edge.
+     */
+    void addAll(EdgeBatch batch) {
+        if (readOnly) {
+            throw new IllegalStateException("Cannot add edges to a snapshot");
+        }
+        int[] local = new int[batch.nodeCount];
+        for (int i = 0; i < batch.nodeCount; i++) {
+            local[i] = intern(batch.names[i]);
+        }
+        int first = edgeCount;
+        ensureEdgeCapacity(edgeCount + batch.size);
+        for (int i = 0; i < batch.size; i++) {
+            edgeFrom[first + i] = local[batch.from[i]];
+            edgeTo[first + i] = local[batch.to[i]];
+        }
+        System.arraycopy(batch.cost, 0, edgeCost, first, batch.size);
+        System.arraycopy(batch.bandwidth, 0, edgeBandwidth, first, batch.size);
+        edgeCount += batch.size;
+        invalidate();
+        mst.addAll(first, edgeCount, nodeCount, edgeFrom, edgeTo, edgeCost);
+    }
+
+    private void ensureEdgeCapacity(int needed) {
+        if (needed > edgeFrom.length) {
+            int capacity = Math.max(needed, edgeFrom.length * 2);
+            edgeFrom = Arrays.copyOf(edgeFrom, capacity);
+            edgeTo = Arrays.copyOf(edgeTo, capacity);
+            edgeCost = Arrays.copyOf(edgeCost, capacity);
+            edgeBandwidth = Arrays.copyOf(edgeBandwidth, capacity);
+        }
+    }
+
+    // Drops everything derived from the edges
+    private void invalidate() {
+        csr = null;
+        paths = null;
+        routing = null;
+        kPaths = null;
+        landmarks = null;
+        queryCache.clear();
+    }
+
+    private int intern(String name) {
+        Integer id = ids.get(name);
+        if (id != null) return id;
+        if (nodeCount == names.length) {
+            names = Arrays.copyOf(names, nodeCount * 2);
+        }
+        names[nodeCount] = name;
+        ids.put(name, nodeCount);
+        return nodeCount++;
+    }
+
+    // Node id for a name, or -1 if the node does not exist
+    int id(String name) {
+        Integer id = ids.get(name);
+        return id == null || id >= nodeCount ? -1 : id; // A snapshot ignores names interned after it
+    }
+
+    int nodeCount() {
+        return nodeCount;
+    }
+
+    int edgeCount() {
+        return edgeCount;
+    }
+
+    // Edge ids of the minimum spanning forest sorted by (cost, id); the array must not be modified
+    int[] minimumSpanningTree() {
+        return mst.tree(edgeFrom, edgeTo, edgeCost);
+    }
+
+    CsrGraph csr() {
+        if (csr == null) {
+            csr = CsrGraph.build(nodeCount, names, edgeCount, edgeFrom, edgeTo, edgeCost, edgeBandwidth);
+        }
+        return csr;
+    }
+
+    /**
+     * Like csr(), but a missing CSR is built by extending previous, the CSR of an earlier state of
+     * this core (e.g. of an older snapshot), so only the edges added since are scattered.
+     */
+    CsrGraph csr(CsrGraph previous) {
+        if (csr == null && previous != null) {
+            csr = CsrGraph.extend(previous, nodeCount, names, edgeCount, edgeFrom, edgeTo, edgeCost, edgeBandwidth);
+        }
+        return csr();
+    }
+
+    /**
+     * Enables landmark-guided queries. The index costs count Dijkstra runs and count longs per node,
+     * and is rebuilt on the first query after the network changes, so it only pays off when many
+     * queries run between edits on road-like networks (on expander-like random graphs the bounds are weak).
+     *
+     * @param count Number of landmarks, or 0 to go back to plain bidirectional Dijkstra.
+     */
+    void useLandmarks(int count) {
+        if (count < 0) {
+            throw new IllegalArgumentException("Landmark count must be non-negative: " + count);
+        }
+        landmarkCount = count;
+        landmarks = null;
+    }
+
+    // Cheapest path between two node ids, answered from the cache when the network is unchanged
+    PathResult shortestPath(int source, int target) {
+        Long key = ((long) source << 32) | target;
+        PathResult result = queryCache.get(key);
+        if (result == null) {
+            if (landmarkCount > 0) {
+                if (landmarks == null) {
+                    landmarks = new LandmarkIndex(csr(), landmarkCount, cancelled);
+                }
+                result = landmarks.shortestPath(source, target);
+            } else {
+                result = paths().shortestPath(source, target);
+            }
+            queryCache.put(key, result);
+        }
+        return result;
+    }
+
+    RoutingEngine routing() {
+        if (routing == null) {
+            routing = new RoutingEngine(csr(), cancelled);
+        }
+        return routing;
+    }
+
+    KShortestPaths kShortestPaths() {
+        if (kPaths == null) {
+            kPaths = new KShortestPaths(csr(), cancelled);
+        }
+        return kPaths;
+    }
+
+    PathEngine paths() {
+        if (paths == null) {
+            paths = new PathEngine(csr(), cancelled);
+        }
+        return paths;
+    }
+}
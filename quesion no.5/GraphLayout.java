@@ -0,0 +1,174 @@
+import java.awt.*;
+import java.util.Arrays;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Node positions for one version of the graph, plus the code that paints them.
+ * A layout is computed once in the background and then only painted, so a repaint does no layout
+ * work and allocates nothing per node or edge. Painting culls everything outside the viewport and
+ * lowers the level of detail as the view zooms out: names and cost labels disappear first, then
+ * edges, and nodes shrink to single points. Nodes are bucketed into a uniform grid once, so a
+ * zoomed-in paint only visits the grid cells under the viewport.
+ */
+final class GraphLayout {
+    private static final int NODE_RADIUS = 20;        // In layout units, like the original fixed grid
+    private static final double LABEL_SCALE = 0.6;    // Minimum zoom at which names and costs are drawn
+    private static final double MIN_EDGE_PIXELS = 3;  // Hide edges when they would be shorter on average
+    private static final int MIN_NODE_PIXELS = 3;     // Below this radius nodes are drawn as points
+
+    private final CsrGraph graph;
+    private final float[] x, y;
+    private final float minX, minY, maxX, maxY;
+
+    // Grid of side x side cells over the bounding box; cell c holds cellNodes[cellStart[c] .. cellStart[c + 1] - 1]
+    private final int side;
+    private final float cellWidth, cellHeight;
+    private final int[] cellStart;
+    private final int[] cellNodes;
+
+    private String[] costLabels; // Created on the first paint that shows them, only touched on the EDT
+
+    private GraphLayout(CsrGraph graph, float[] x, float[] y) {
+        this.graph = graph;
+        this.x = x;
+        this.y = y;
+        float x0 = 0, y0 = 0, x1 = 0, y1 = 0;
+        for (int v = 0; v < x.length; v++) {
+            x0 = v == 0 ? x[v] : Math.min(x0, x[v]);
+            y0 = v == 0 ? y[v] : Math.min(y0, y[v]);
+            x1 = v == 0 ? x[v] : Math.max(x1, x[v]);
+            y1 = v == 0 ? y[v] : Math.max(y1, y[v]);
+        }
+        minX = x0;
+        minY = y0;
+        maxX = x1;
+        maxY = y1;
+
+        // About four nodes per cell, bucketed with a counting sort
+        side = Math.max(1, (int) Math.ceil(Math.sqrt(x.length / 4.0)));
+        cellWidth = Math.max(1e-3f, (maxX - minX) / side);
+        cellHeight = Math.max(1e-3f, (maxY - minY) / side);
+        cellStart = new int[side * side + 1];
+        for (int v = 0; v < x.length; v++) {
+            cellStart[cellOf(column(x[v]), row(y[v])) + 1]++;
+        }
+        for (int c = 0; c < side * side; c++) {
+            cellStart[c + 1] += cellStart[c];
+        }
+        cellNodes = new int[x.length];
+        int[] next = Arrays.copyOf(cellStart, side * side);
+        for (int v = 0; v < x.length; v++) {
+            cellNodes[next[cellOf(column(x[v]), row(y[v]))]++] = v;
+        }
+    }
+
+    private int column(float px) {
+        return Math.max(0, Math.min(side - 1, (int) ((px - minX) / cellWidth)));
+    }
+
+    private int row(float py) {
+        return Math.max(0, Math.min(side - 1, (int) ((py - minY) / cellHeight)));
+    }
+
+    private int cellOf(int column, int row) {
+        return row * side + column;
+    }
+
+    /**
+     * Lays out a graph with ForceLayout. Runs for a while on large graphs, so call it off the EDT.
+     *
+     * @param previous Layout of an earlier version of the same graph, whose positions are kept as the
+     *                 starting point, or null.
+     * @param cancelled Polled once per iteration; CancellationException is thrown once it is true.
+     */
+    static GraphLayout compute(CsrGraph graph, GraphLayout previous, BooleanSupplier cancelled) {
+        float[][] positions = ForceLayout.compute(graph, previous, cancelled);
+        return new GraphLayout(graph, positions[0], positions[1]);
+    }
+
+    int nodeCount() {
+        return x.length;
+    }
+
+    float x(int node) {
+        return x[node];
+    }
+
+    float y(int node) {
+        return y[node];
+    }
+
+    /**
+     * Returns the scale and offset {scale, offsetX, offsetY} that fit the whole layout into a
+     * width x height area, with a margin of one node.
+     */
+    double[] fit(int width, int height) {
+        double spanX = maxX - minX + 4 * NODE_RADIUS, spanY = maxY - minY + 4 * NODE_RADIUS;
+        double scale = Math.min(1, Math.min(width / spanX, height / spanY));
+        double offsetX = width / 2.0 - (minX + maxX) / 2.0 * scale;
+        double offsetY = height / 2.0 - (minY + maxY) / 2.0 * scale;
+        return new double[] {scale, offsetX, offsetY};
+    }
+
+    /**
+     * Paints the visible part of the layout; a node at (x, y) appears at (x * scale + offsetX,
+     * y * scale + offsetY).
+     */
+    void paint(Graphics g, double scale, double offsetX, double offsetY) {
+        Rectangle clip = g.getClipBounds();
+        if (clip == null) return;
+        int radius = (int) Math.round(NODE_RADIUS * scale);
+        int left = clip.x - radius, top = clip.y - radius;
+        int right = clip.x + clip.width + radius, bottom = clip.y + clip.height + radius;
+        // The same area in layout coordinates, for culling before anything is projected
+        double layoutLeft = (left - offsetX) / scale, layoutRight = (right - offsetX) / scale;
+        double layoutTop = (top - offsetY) / scale, layoutBottom = (bottom - offsetY) / scale;
+
+        boolean labels = scale >= LABEL_SCALE;
+        if (ForceLayout.EDGE_LENGTH * scale >= MIN_EDGE_PIXELS) {
+            if (labels && costLabels == null) {
+                costLabels = new String[graph.edgeCount];
+                for (int e = 0; e < graph.edgeCount; e++) {
+                    costLabels[e] = Integer.toString(graph.edgeCost[e]);
+                }
+            }
+            for (int e = 0; e < graph.edgeCount; e++) {
+                int a = graph.edgeFrom[e], b = graph.edgeTo[e];
+                // Skip edges whose bounding box misses the clip area
+                if (Math.max(x[a], x[b]) < layoutLeft || Math.min(x[a], x[b]) > layoutRight
+                        || Math.max(y[a], y[b]) < layoutTop || Math.min(y[a], y[b]) > layoutBottom) continue;
+                int ax = (int) Math.round(x[a] * scale + offsetX), ay = (int) Math.round(y[a] * scale + offsetY);
+                int bx = (int) Math.round(x[b] * scale + offsetX), by = (int) Math.round(y[b] * scale + offsetY);
+                g.setColor(Color.RED);
+                g.drawLine(ax, ay, bx, by); // Draw line for the edge
+                if (labels) {
+                    g.setColor(Color.BLACK);
+                    g.drawString(costLabels[e], (ax + bx) / 2, (ay + by) / 2);
+                }
+            }
+        }
+
+        if (layoutRight < minX || layoutLeft > maxX || layoutBottom < minY || layoutTop > maxY) return;
+        int column0 = column((float) Math.max(minX, layoutLeft)), column1 = column((float) Math.min(maxX, layoutRight));
+        int row0 = row((float) Math.max(minY, layoutTop)), row1 = row((float) Math.min(maxY, layoutBottom));
+        for (int row = row0; row <= row1; row++) {
+            for (int c = cellOf(column0, row); c <= cellOf(column1, row); c++) {
+                for (int i = cellStart[c]; i < cellStart[c + 1]; i++) {
+                    int v = cellNodes[i];
+                    int sx = (int) Math.round(x[v] * scale + offsetX), sy = (int) Math.round(y[v] * scale + offsetY);
+                    if (sx < left || sx > right || sy < top || sy > bottom) continue;
+                    g.setColor(Color.BLUE);
+                    if (radius >= MIN_NODE_PIXELS) {
+                        g.fillOval(sx - radius, sy - radius, radius * 2, radius * 2); // Draw node as a circle
+                    } else {
+                        g.fillRect(sx - 1, sy - 1, 2, 2);
+                    }
+                    if (labels) {
+                        g.setColor(Color.BLACK);
+                        g.drawString(graph.names[v], sx - radius / 2, sy - radius); // Draw node name
+                    }
+                }
+            }
+        }
+    }
+}
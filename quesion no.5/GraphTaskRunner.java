@@ -0,0 +1,124 @@
+import javax.swing.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+/**
+ * Runs graph computations off the Event Dispatch Thread.
+ * Tasks execute one at a time on a background worker, usually against a Graph snapshot so the EDT can
+ * keep editing the live graph. Progress messages and results are posted back with
+ * SwingUtilities.invokeLater. A task submitted under a key that is already queued or running is
+ * coalesced into the existing one, so repeated clicks do not pile up work. Cancellation is
+ * cooperative: tasks poll cancellation() rather than the worker's interrupt status.
+ * All methods must be called on the EDT.
+ */
+final class GraphTaskRunner {
+    // A background computation; it may call progress with status messages while it runs
+    interface Task<T> {
+        T run(Consumer<String> progress) throws Exception;
+    }
+
+    private final ExecutorService worker = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "graph-worker");
+        thread.setDaemon(true); // Do not keep the JVM alive after the window closes
+        return thread;
+    });
+    private final Map<String, Future<?>> inFlight = new LinkedHashMap<>(); // Queued or running, by key
+    private volatile Future<?> running; // Task on the worker thread, null between tasks
+    private final BooleanSupplier cancellation = () -> {
+        Future<?> task = running;
+        return task != null && task.isCancelled();
+    };
+    private final JProgressBar progressBar;
+
+    GraphTaskRunner(JProgressBar progressBar) {
+        this.progressBar = progressBar;
+        progressBar.setStringPainted(true);
+        progressBar.setString("Idle");
+    }
+
+    /**
+     * Queues a task unless one with the same key is already queued or running.
+     *
+     * @param key    Identifies repeated requests for the same computation.
+     * @param task   Runs on the worker thread.
+     * @param onDone Receives the result on the EDT; not called if the task fails or is cancelled.
+     * @return false if the request was coalesced into an existing task.
+     */
+    <T> boolean submit(String key, Task<T> task, Consumer<? super T> onDone) {
+        if (inFlight.containsKey(key)) {
+            return false;
+        }
+        FutureTask<T> future = new FutureTask<>(() -> task.run(message -> SwingUtilities.invokeLater(() -> {
+            if (inFlight.containsKey(key)) progressBar.setString(message);
+        }))) {
+            @Override
+            public void run() {
+                running = this;
+                try {
+                    super.run();
+                } finally {
+                    running = null;
+                }
+            }
+
+            @Override
+            protected void done() {
+                SwingUtilities.invokeLater(() -> finish(key, this, onDone));
+            }
+        };
+        inFlight.put(key, future);
+        progressBar.setIndeterminate(true);
+        progressBar.setString(key);
+        worker.execute(future);
+        return true;
+    }
+
+    /**
+     * Cancels every queued and running task; running ones stop at their next cancellation check.
+     * Their keys are free again right away, so the same computation can be submitted anew.
+     *
+     * @return Keys of the cancelled tasks.
+     */
+    Set<String> cancelAll() {
+        Set<String> keys = new LinkedHashSet<>(inFlight.keySet());
+        for (Future<?> future : inFlight.values()) {
+            future.cancel(false);
+        }
+        inFlight.clear();
+        return keys;
+    }
+
+    /**
+     * Token that is true while the task running on the worker has been cancelled. Pass it to the
+     * computations a task runs (e.g. GraphCore.snapshot(cancelled)); it is only meaningful there.
+     */
+    BooleanSupplier cancellation() {
+        return cancellation;
+    }
+
+    boolean isBusy() {
+        return !inFlight.isEmpty();
+    }
+
+    private <T> void finish(String key, FutureTask<T> future, Consumer<? super T> onDone) {
+        inFlight.remove(key, future);
+        String status;
+        if (future.isCancelled()) {
+            status = "Cancelled: " + key;
+        } else {
+            try {
+                onDone.accept(future.get());
+                status = "Done: " + key;
+            } catch (ExecutionException e) {
+                status = "Failed: " + key + " (" + e.getCause() + ")";
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+        progressBar.setIndeterminate(isBusy());
+        progressBar.setString(isBusy() ? inFlight.keySet().iterator().next() : status);
+    }
+}
@@ -0,0 +1,107 @@
+import java.util.*;
+
+/**
+ * Indexed d-ary min-heap of node ids keyed by long distances, with decrease-key.
+ * Each node is in the heap at most once, so Dijkstra needs no lazy duplicates and no per-relaxation
+ * allocation. A 4-ary heap is shallower than a binary one and keeps children on the same cache line.
+ */
+final class IndexedDaryHeap {
+    private static final int D = 4;
+
+    private final int[] heap;     // Node ids in heap order
+    private final int[] position; // Index of each node in heap, or -1 if absent
+    private final long[] key;     // Current key of each node in the heap
+    private int size;
+
+    IndexedDaryHeap(int capacity) {
+        heap = new int[capacity];
+        position = new int[capacity];
+        key = new long[capacity];
+        Arrays.fill(position, -1);
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    boolean contains(int node) {
+        return position[node] >= 0;
+    }
+
+    // Smallest key in the heap; only valid when not empty
+    long minKey() {
+        return key[heap[0]];
+    }
+
+    /**
+     * Inserts node with the given key, or lowers its key if it is already present with a larger one.
+     */
+    void insertOrDecrease(int node, long newKey) {
+        int i = position[node];
+        if (i < 0) {
+            i = size++;
+            heap[i] = node;
+            position[node] = i;
+        } else if (newKey >= key[node]) {
+            return;
+        }
+        key[node] = newKey;
+        siftUp(i);
+    }
+
+    // Removes and returns the node with the smallest key
+    int poll() {
+        int min = heap[0];
+        position[min] = -1;
+        int last = heap[--size];
+        if (size > 0) {
+            heap[0] = last;
+            position[last] = 0;
+            siftDown(0);
+        }
+        return min;
+    }
+
+    // Empties the heap in O(size), leaving it ready for the next query
+    void clear() {
+        for (int i = 0; i < size; i++) {
+            position[heap[i]] = -1;
+        }
+        size = 0;
+    }
+
+    private void siftUp(int i) {
+        int node = heap[i];
+        long k = key[node];
+        while (i > 0) {
+            int parent = (i - 1) / D;
+            int parentNode = heap[parent];
+            if (key[parentNode] <= k) break;
+            heap[i] = parentNode;
+            position[parentNode] = i;
+            i = parent;
+        }
+        heap[i] = node;
+        position[node] = i;
+    }
+
+    private void siftDown(int i) {
+        int node = heap[i];
+        long k = key[node];
+        while (true) {
+            int first = i * D + 1;
+            if (first >= size) break;
+            int best = first;
+            int last = Math.min(first + D, size);
+            for (int c = first + 1; c < last; c++) {
+                if (key[heap[c]] < key[heap[best]]) best = c;
+            }
+            if (key[heap[best]] >= k) break;
+            heap[i] = heap[best];
+            position[heap[i]] = i;
+            i = best;
+        }
+        heap[i] = node;
+        position[node] = i;
+    }
+}
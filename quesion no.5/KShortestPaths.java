@@ -0,0 +1,281 @@
+import java.util.*;
+import java.util.function.BooleanSupplier;
+
+/**
+ * The k cheapest loop-free routes between two nodes, by Yen's algorithm with Lawler's refinement.
+ * Shared state keeps the spur searches cheap:
+ * - One reverse shortest-path tree from the target, reused by every spur search and by later
+ *   queries to the same target. Its distances are an exact, consistent A* bound. A spur search can
+ *   stop at the first node whose tree route avoids every banned node and connection: its key is
+ *   then the cost of a complete cheapest route.
+ * - Prefix costs are stored with each route, and spur nodes before a route's deviation point are
+ *   skipped because those roots were already expanded when its parent was.
+ * - All per-node arrays are reused between searches and invalidated by bumping a stamp.
+ * Costs are assumed to be non-negative.
+ */
+final class KShortestPaths {
+    private static final long UNREACHABLE = Long.MAX_VALUE / 2;
+
+    private final CsrGraph graph;
+    private final BooleanSupplier cancelled;
+
+    // Reverse shortest-path tree towards treeTarget
+    private int treeTarget = -1;
+    private final long[] toTarget;
+    private final int[] nextNode; // Next node towards the target, -1 at the target
+    private final int[] nextEdge; // Edge id of that step
+
+    // Spur search state, valid for entries whose stamp matches the current search
+    private final IndexedDaryHeap heap;
+    private final long[] cost;
+    private final int[] parentHalfEdge;
+    private final int[] parentNode;
+    private final int[] seen;
+    private final int[] closed;
+    private final int[] bannedNode;
+    private final int[] bannedEdge;
+    private final int[] memo;          // Stamp of memoized tree-route checks
+    private final boolean[] memoValid;
+    private int stamp;
+
+    KShortestPaths(CsrGraph graph) {
+        this(graph, Cancellation.NEVER);
+    }
+
+    // Queries throw CancellationException once cancelled returns true
+    KShortestPaths(CsrGraph graph, BooleanSupplier cancelled) {
+        this.graph = graph;
+        this.cancelled = cancelled;
+        int n = graph.nodeCount;
+        toTarget = new long[n];
+        nextNode = new int[n];
+        nextEdge = new int[n];
+        heap = new IndexedDaryHeap(n);
+        cost = new long[n];
+        parentHalfEdge = new int[n];
+        parentNode = new int[n];
+        seen = new int[n];
+        closed = new int[n];
+        bannedNode = new int[n];
+        bannedEdge = new int[graph.edgeCount];
+        memo = new int[n];
+        memoValid = new boolean[n];
+    }
+
+    /**
+     * Finds up to k cheapest loop-free routes, cheapest first.
+     *
+     * @return The routes; fewer than k if there are not that many.
+     */
+    List<Route> find(int source, int target, int k) {
+        List<Route> routes = new ArrayList<>();
+        if (k <= 0) return routes;
+        buildTree(target);
+        stamp++;
+        Path first = spur(source, target, null, 0);
+        if (first == null) return routes;
+
+        List<Path> found = new ArrayList<>();
+        PriorityQueue<Path> candidates = new PriorityQueue<>();
+        Set<Path> known = new HashSet<>();
+        found.add(first);
+        known.add(first);
+        while (found.size() < k) {
+            Path previous = found.get(found.size() - 1);
+            for (int i = previous.deviation; i < previous.edges.length; i++) {
+                Cancellation.check(cancelled);
+                stamp++;
+                // Ban the root's nodes, and the next connection of every found route sharing this root
+                for (int j = 0; j < i; j++) {
+                    bannedNode[previous.nodes[j]] = stamp;
+                }
+                for (Path path : found) {
+                    if (path.edges.length > i && path.sharesRoot(previous, i)) {
+                        bannedEdge[path.edges[i]] = stamp;
+                    }
+                }
+                Path candidate = spur(previous.nodes[i], target, previous, i);
+                if (candidate != null && known.add(candidate)) {
+                    candidates.add(candidate);
+                }
+            }
+            if (candidates.isEmpty()) break;
+            found.add(candidates.poll());
+        }
+        for (Path path : found) {
+            routes.add(path.route(graph));
+        }
+        return routes;
+    }
+
+    // Dijkstra from the target over the whole graph; kept until a query for another target
+    private void buildTree(int target) {
+        if (treeTarget == target) return;
+        treeTarget = -1; // Stays invalid if this build is cancelled
+        stamp++;
+        heap.clear();
+        Arrays.fill(toTarget, UNREACHABLE);
+        toTarget[target] = 0;
+        nextNode[target] = -1;
+        heap.insertOrDecrease(target, 0);
+        while (!heap.isEmpty()) {
+            int u = heap.poll();
+            closed[u] = stamp;
+            for (int h = graph.offsets[u]; h < graph.offsets[u + 1]; h++) {
+                int v = graph.targets[h];
+                long d = toTarget[u] + graph.costs[h];
+                if (closed[v] != stamp && d < toTarget[v]) {
+                    toTarget[v] = d;
+                    nextNode[v] = u;
+                    nextEdge[v] = graph.edgeIds[h];
+                    heap.insertOrDecrease(v, d);
+                }
+            }
+        }
+        treeTarget = target;
+    }
+
+    /**
+     * A* from the spur node to the target avoiding the nodes and connections banned under the current
+     * stamp. The route found is prefixed with the first i steps of root, if given.
+     */
+    private Path spur(int from, int target, Path root, int i) {
+        if (toTarget[from] == UNREACHABLE) return null;
+        heap.clear();
+        seen[from] = stamp;
+        cost[from] = 0;
+        parentNode[from] = -1;
+        heap.insertOrDecrease(from, toTarget[from]);
+        while (!heap.isEmpty()) {
+            int u = heap.poll();
+            closed[u] = stamp;
+            if (treeRouteAllowed(u, target)) {
+                return join(root, i, from, u, target);
+            }
+            for (int h = graph.offsets[u]; h < graph.offsets[u + 1]; h++) {
+                int v = graph.targets[h];
+                if (bannedNode[v] == stamp || bannedEdge[graph.edgeIds[h]] == stamp || closed[v] == stamp) continue;
+                if (toTarget[v] == UNREACHABLE) continue;
+                long d = cost[u] + graph.costs[h];
+                if (seen[v] != stamp || d < cost[v]) {
+                    seen[v] = stamp;
+                    cost[v] = d;
+                    parentNode[v] = u;
+                    parentHalfEdge[v] = h;
+                    heap.insertOrDecrease(v, d + toTarget[v]);
+                }
+            }
+        }
+        return null;
+    }
+
+    // True if the tree route from v to the target uses no banned node or connection
+    private boolean treeRouteAllowed(int v, int target) {
+        int u = v;
+        boolean valid = true;
+        while (u != target) {
+            if (memo[u] == stamp) {
+                valid = memoValid[u];
+                break;
+            }
+            if (bannedNode[u] == stamp || bannedEdge[nextEdge[u]] == stamp) {
+                valid = false;
+                break;
+            }
+            u = nextNode[u];
+        }
+        // Every node walked shares the verdict: a failure lies on, or a success covers, their routes
+        for (int w = v; w != u; w = nextNode[w]) {
+            memo[w] = stamp;
+            memoValid[w] = valid;
+        }
+        return valid;
+    }
+
+    // Root prefix + A* route from the spur node to meet + tree route from meet to the target
+    private Path join(Path root, int i, int spurNode, int meet, int target) {
+        int spurLength = 0;
+        for (int v = meet; v != spurNode; v = parentNode[v]) {
+            spurLength++;
+        }
+        int treeLength = 0;
+        for (int v = meet; v != target; v = nextNode[v]) {
+            treeLength++;
+        }
+        int[] nodes = new int[i + spurLength + treeLength + 1];
+        int[] edges = new int[i + spurLength + treeLength];
+        if (root != null) {
+            System.arraycopy(root.nodes, 0, nodes, 0, i);
+            System.arraycopy(root.edges, 0, edges, 0, i);
+        }
+        int at = i + spurLength;
+        for (int v = meet; v != spurNode; v = parentNode[v]) {
+            nodes[at] = v;
+            edges[--at] = graph.edgeIds[parentHalfEdge[v]];
+        }
+        nodes[i] = spurNode;
+        at = i + spurLength;
+        for (int v = meet; v != target; v = nextNode[v]) {
+            edges[at] = nextEdge[v];
+            nodes[++at] = nextNode[v];
+        }
+        return new Path(nodes, edges, graph.edgeCost, i);
+    }
+
+    // A route as node and edge id sequences, with prefix costs and the index where it left its parent
+    private static final class Path implements Comparable<Path> {
+        final int[] nodes;
+        final int[] edges;
+        final long[] prefix; // prefix[j] = cost of the first j edges
+        final int deviation;
+        private final int hash;
+
+        Path(int[] nodes, int[] edges, int[] edgeCost, int deviation) {
+            this.nodes = nodes;
+            this.edges = edges;
+            this.prefix = new long[edges.length + 1];
+            for (int j = 0; j < edges.length; j++) {
+                prefix[j + 1] = prefix[j] + edgeCost[edges[j]];
+            }
+            this.deviation = deviation;
+            this.hash = Arrays.hashCode(edges) * 31 + nodes[0];
+        }
+
+        long cost() {
+            return prefix[edges.length];
+        }
+
+        // True if the first i steps equal those of other
+        boolean sharesRoot(Path other, int i) {
+            return Arrays.equals(edges, 0, i, other.edges, 0, i) && nodes[0] == other.nodes[0];
+        }
+
+        Route route(CsrGraph graph) {
+            List<String> names = new ArrayList<>(nodes.length);
+            for (int node : nodes) {
+                names.add(graph.names[node]);
+            }
+            int bandwidth = Integer.MAX_VALUE;
+            for (int e : edges) {
+                bandwidth = Math.min(bandwidth, graph.edgeBandwidth[e]);
+            }
+            return new Route(cost(), bandwidth, names);
+        }
+
+        @Override
+        public int compareTo(Path other) {
+            int order = Long.compare(cost(), other.cost());
+            return order != 0 ? order : Integer.compare(edges.length, other.edges.length);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Path && nodes[0] == ((Path) o).nodes[0] && Arrays.equals(edges, ((Path) o).edges);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,171 @@
+import java.util.*;
+import java.util.function.BooleanSupplier;
+
+/**
+ * ALT preprocessing (A*, Landmarks, Triangle inequality) for repeated shortest-path queries.
+ * A few landmarks are picked far apart from each other and the distance from each landmark to every
+ * node is stored. For any node v and target t, |d(L, t) - d(L, v)| is a lower bound on d(v, t), so
+ * A* guided by the best landmark bound settles far fewer nodes than plain Dijkstra.
+ */
+final class LandmarkIndex {
+    private static final long UNREACHABLE = Long.MAX_VALUE;
+    private static final int ACTIVE_LANDMARKS = 4; // Landmarks consulted per query
+
+    private final CsrGraph graph;
+    private final BooleanSupplier cancelled;
+    private final long[][] distances; // distances[i][v] = d(landmark i, v)
+    private long[][] active;          // The landmarks with the best bounds for the current query
+
+    // Reusable A* state
+    private final IndexedDaryHeap heap;
+    private final long[] dist;
+    private final int[] parent;
+    private final int[] stamp;
+    private final int[] closed; // Query stamp of settled nodes, so negative costs cannot loop forever
+    private int query;
+    private int settled;
+
+    /**
+     * Picks landmarks and computes their distance tables.
+     *
+     * @param graph Graph to index.
+     * @param count Number of landmarks; each costs one Dijkstra and one long per node.
+     * @param cancelled Polled while indexing and during queries, which throw CancellationException once it is true.
+     */
+    LandmarkIndex(CsrGraph graph, int count, BooleanSupplier cancelled) {
+        this.graph = graph;
+        this.cancelled = cancelled;
+        int n = graph.nodeCount;
+        count = Math.min(count, n);
+        this.heap = new IndexedDaryHeap(n);
+        this.dist = new long[n];
+        this.parent = new int[n];
+        this.stamp = new int[n];
+        this.closed = new int[n];
+
+        // Farthest-point selection: each new landmark maximizes its distance to the chosen ones,
+        // and nodes unreachable from all of them (other components) are picked first
+        distances = new long[count][];
+        long[] nearest = new long[n];
+        Arrays.fill(nearest, UNREACHABLE);
+        int next = 0;
+        for (int i = 0; i < count; i++) {
+            Cancellation.check(cancelled);
+            distances[i] = distancesFrom(next);
+            int farthest = next;
+            for (int v = 0; v < n; v++) {
+                nearest[v] = Math.min(nearest[v], distances[i][v]);
+                if (nearest[v] > nearest[farthest]) {
+                    farthest = v;
+                }
+            }
+            next = farthest;
+        }
+    }
+
+    /**
+     * Finds a cheapest path with landmark-guided A*.
+     *
+     * @param source Source node id.
+     * @param target Target node id.
+     * @return The path, or PathResult.NONE if target is unreachable.
+     */
+    PathResult shortestPath(int source, int target) {
+        query++;
+        settled = 0;
+        heap.clear();
+        active = distances;
+        if (bound(source, target) == UNREACHABLE) {
+            return PathResult.NONE; // Different components according to some landmark
+        }
+        selectActive(source, target);
+        stamp[source] = query;
+        dist[source] = 0;
+        parent[source] = -1;
+        heap.insertOrDecrease(source, bound(source, target));
+
+        while (!heap.isEmpty()) {
+            int u = heap.poll();
+            closed[u] = query;
+            if ((++settled & 0xFFF) == 0) Cancellation.check(cancelled);
+            if (u == target) {
+                return new PathResult(dist[u], pathTo(u));
+            }
+            long du = dist[u];
+            for (int h = graph.offsets[u]; h < graph.offsets[u + 1]; h++) {
+                int v = graph.targets[h];
+                long dv = du + graph.costs[h];
+                if (stamp[v] == query && (dist[v] <= dv || closed[v] == query)) continue;
+                long estimate = bound(v, target);
+                if (estimate == UNREACHABLE) continue;
+                stamp[v] = query;
+                dist[v] = dv;
+                parent[v] = u;
+                heap.insertOrDecrease(v, dv + estimate);
+            }
+        }
+        return PathResult.NONE;
+    }
+
+    // Number of nodes settled by the last query
+    int settledCount() {
+        return settled;
+    }
+
+    // Keeps the landmarks that bound d(source, target) best; they tend to bound the nodes in between well too
+    private void selectActive(int source, int target) {
+        if (distances.length <= ACTIVE_LANDMARKS) return;
+        long[][] sorted = distances.clone();
+        Arrays.sort(sorted, Comparator.comparingLong((long[] row) -> -Math.abs(row[target] - row[source])));
+        active = Arrays.copyOf(sorted, ACTIVE_LANDMARKS);
+    }
+
+    // Largest landmark lower bound on d(v, target), or UNREACHABLE if they are in different components
+    private long bound(int v, int target) {
+        long best = 0;
+        for (long[] row : active) {
+            long dv = row[v], dt = row[target];
+            if ((dv == UNREACHABLE) != (dt == UNREACHABLE)) return UNREACHABLE;
+            if (dv != UNREACHABLE) {
+                best = Math.max(best, Math.abs(dt - dv));
+            }
+        }
+        return best;
+    }
+
+    private int[] pathTo(int target) {
+        int length = 0;
+        for (int v = target; v >= 0; v = parent[v]) {
+            length++;
+        }
+        int[] nodes = new int[length];
+        for (int v = target; v >= 0; v = parent[v]) {
+            nodes[--length] = v;
+        }
+        return nodes;
+    }
+
+    // Plain Dijkstra from source to every node
+    private long[] distancesFrom(int source) {
+        long[] result = new long[graph.nodeCount];
+        Arrays.fill(result, UNREACHABLE);
+        boolean[] settled = new boolean[graph.nodeCount];
+        heap.clear();
+        result[source] = 0;
+        heap.insertOrDecrease(source, 0);
+        while (!heap.isEmpty()) {
+            int u = heap.poll();
+            settled[u] = true;
+            long du = result[u];
+            for (int h = graph.offsets[u]; h < graph.offsets[u + 1]; h++) {
+                int v = graph.targets[h];
+                long dv = du + graph.costs[h];
+                if (dv < result[v] && !settled[v]) {
+                    result[v] = dv;
+                    heap.insertOrDecrease(v, dv);
+                }
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,174 @@
+import java.util.*;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Minimum spanning forest kept up to date while edges are added.
+ * An edge joining two components always enters the forest right away. An edge closing a cycle is
+ * only a candidate: by the cycle property, MST(forest + candidates) is the MST of the whole network,
+ * so candidates are folded in with Kruskal over those few edges instead of over every edge. That
+ * happens when the forest is asked for, or once candidates outnumber the nodes, which keeps the
+ * work per added edge amortized O(log n).
+ * Ties are broken by edge id, so the result matches a from-scratch Kruskal over (cost, id).
+ * The forest and candidate arrays are only appended to, and a fold replaces them, so a read-only
+ * view of the engine shares them and costs O(1).
+ */
+final class MstEngine {
+    private final UnionFind components; // Null in a read-only view
+    private final int viewSets;         // Number of components when the view was taken
+    private final BooleanSupplier cancelled; // Polled while candidates are folded in
+    private int[] forest = new int[16];     // Edge ids in the spanning forest
+    private int forestSize;
+    private int[] candidates = new int[16]; // Cycle-closing edge ids not yet folded in
+    private int candidateCount;
+    private int nodeCount;
+    private int[] sorted; // Cached answer of tree(), null after a change
+
+    MstEngine() {
+        components = new UnionFind(0);
+        viewSets = 0;
+        cancelled = Cancellation.NEVER;
+    }
+
+    private MstEngine(MstEngine source, UnionFind components, BooleanSupplier cancelled) {
+        this.components = components;
+        this.viewSets = source.sets();
+        this.cancelled = cancelled;
+        forest = source.forest;
+        forestSize = source.forestSize;
+        candidates = source.candidates;
+        candidateCount = source.candidateCount;
+        nodeCount = source.nodeCount;
+        sorted = source.sorted;
+    }
+
+    /**
+     * Read-only view for a snapshot, in O(1): it shares the arrays, and folding its candidates
+     * allocates new ones, so neither engine sees the other's later changes. add and addAll must not
+     * be called on it.
+     */
+    MstEngine view(BooleanSupplier cancelled) {
+        return new MstEngine(this, null, cancelled);
+    }
+
+    // Independent writable copy, in O(nodes); a view's components are rebuilt from its forest
+    MstEngine copy(int[] edgeFrom, int[] edgeTo) {
+        UnionFind sets;
+        if (components != null) {
+            sets = new UnionFind(components);
+        } else {
+            sets = new UnionFind(nodeCount);
+            for (int i = 0; i < forestSize; i++) {
+                sets.union(edgeFrom[forest[i]], edgeTo[forest[i]]);
+            }
+        }
+        return new MstEngine(this, sets, Cancellation.NEVER);
+    }
+
+    private int sets() {
+        return components != null ? components.sets() : viewSets;
+    }
+
+    /**
+     * Records a new edge.
+     *
+     * @param e         The edge's id; its endpoints and cost must already be in the columns.
+     * @param nodeCount Number of nodes in the network, including the edge's endpoints.
+     */
+    void add(int e, int nodeCount, int[] edgeFrom, int[] edgeTo, int[] edgeCost) {
+        this.nodeCount = nodeCount;
+        sorted = null;
+        components.grow(nodeCount);
+        if (components.union(edgeFrom[e], edgeTo[e])) {
+            forest = append(forest, forestSize++, e);
+        } else {
+            candidates = append(candidates, candidateCount++, e);
+            if (candidateCount > Math.max(nodeCount, 64)) {
+                foldCandidates(edgeFrom, edgeTo, edgeCost);
+            }
+        }
+    }
+
+    /**
+     * Records the edges first .. end - 1 at once and recomputes the forest with one Kruskal pass over
+     * the current forest plus the new edges.
+     */
+    void addAll(int first, int end, int nodeCount, int[] edgeFrom, int[] edgeTo, int[] edgeCost) {
+        this.nodeCount = nodeCount;
+        sorted = null;
+        components.grow(nodeCount);
+        for (int e = first; e < end; e++) {
+            components.union(edgeFrom[e], edgeTo[e]);
+            candidates = append(candidates, candidateCount++, e);
+        }
+        foldCandidates(edgeFrom, edgeTo, edgeCost);
+    }
+
+    /**
+     * Returns the minimum spanning forest as edge ids sorted by (cost, id). The array is shared
+     * until the next change, so callers must not modify it.
+     */
+    int[] tree(int[] edgeFrom, int[] edgeTo, int[] edgeCost) {
+        if (sorted == null) {
+            foldCandidates(edgeFrom, edgeTo, edgeCost);
+            sorted = sortByCost(forest, forestSize, edgeCost);
+        }
+        return sorted;
+    }
+
+    private void foldCandidates(int[] edgeFrom, int[] edgeTo, int[] edgeCost) {
+        if (candidateCount == 0) return;
+        int[] edges = Arrays.copyOf(forest, forestSize + candidateCount);
+        System.arraycopy(candidates, 0, edges, forestSize, candidateCount);
+        forest = kruskal(nodeCount, edges, edges.length, edgeFrom, edgeTo, edgeCost, nodeCount - sets(), cancelled);
+        forestSize = forest.length;
+        candidates = new int[16]; // Not cleared in place: a view may still read the old one
+        candidateCount = 0;
+    }
+
+    /**
+     * Kruskal's algorithm over a subset of the edges.
+     *
+     * @param edges    Edge ids to choose from; the first count entries are used.
+     * @param treeSize Number of edges in a spanning forest of those edges (nodes minus components),
+     *                 so the scan stops as soon as the forest is complete.
+     * @param cancelled Polled during the scan; CancellationException is thrown once it is true.
+     * @return The chosen edge ids, sorted by (cost, id).
+     */
+    static int[] kruskal(int nodeCount, int[] edges, int count, int[] edgeFrom, int[] edgeTo, int[] edgeCost,
+                         int treeSize, BooleanSupplier cancelled) {
+        int[] sorted = sortByCost(edges, count, edgeCost);
+        UnionFind sets = new UnionFind(nodeCount);
+        int[] tree = new int[treeSize];
+        int size = 0;
+        for (int i = 0; i < count && size < treeSize; i++) {
+            if ((i & 0xFFFF) == 0) Cancellation.check(cancelled);
+            int e = sorted[i];
+            if (sets.union(edgeFrom[e], edgeTo[e])) {
+                tree[size++] = e;
+            }
+        }
+        return size == treeSize ? tree : Arrays.copyOf(tree, size);
+    }
+
+    // Sorts edge ids by (cost, id) packed into primitive longs
+    private static int[] sortByCost(int[] edges, int count, int[] edgeCost) {
+        long[] order = new long[count];
+        for (int i = 0; i < count; i++) {
+            order[i] = ((long) edgeCost[edges[i]] << 32) | edges[i];
+        }
+        Arrays.sort(order);
+        int[] sorted = new int[count];
+        for (int i = 0; i < count; i++) {
+            sorted[i] = (int) order[i];
+        }
+        return sorted;
+    }
+
+    private static int[] append(int[] array, int index, int value) {
+        if (index == array.length) {
+            array = Arrays.copyOf(array, Math.max(16, index * 2));
+        }
+        array[index] = value;
+        return array;
+    }
+}
@@ -0,0 +1,136 @@
+import java.util.*;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Point-to-point shortest paths on a CsrGraph with bidirectional Dijkstra.
+ * Both searches use an indexed 4-ary heap with decrease-key, and all per-node state lives in arrays
+ * that are reused between queries (entries are invalidated by bumping a stamp instead of clearing).
+ * Costs are assumed to be non-negative; with negative ones a node is still settled only once, so the
+ * search terminates, like the original visited-set Dijkstra, but the answer may not be optimal.
+ */
+final class PathEngine {
+    private final CsrGraph graph;
+    private final Side forward;
+    private final Side backward;
+    private final BooleanSupplier cancelled;
+    private int stamp;
+    private int settled; // Nodes settled by the last query, both directions together
+
+    PathEngine(CsrGraph graph) {
+        this(graph, Cancellation.NEVER);
+    }
+
+    // Queries throw CancellationException once cancelled returns true
+    PathEngine(CsrGraph graph, BooleanSupplier cancelled) {
+        this.graph = graph;
+        this.cancelled = cancelled;
+        this.forward = new Side(graph.nodeCount);
+        this.backward = new Side(graph.nodeCount);
+    }
+
+    /**
+     * Finds a cheapest path between two nodes.
+     *
+     * @param source Source node id.
+     * @param target Target node id.
+     * @return The path, or PathResult.NONE if target is unreachable.
+     */
+    PathResult shortestPath(int source, int target) {
+        stamp++;
+        settled = 0;
+        forward.reset(source);
+        backward.reset(target);
+        if (source == target) {
+            return new PathResult(0, new int[] {source});
+        }
+
+        long best = Long.MAX_VALUE;
+        int meet = -1;
+        while (!forward.heap.isEmpty() && !backward.heap.isEmpty()) {
+            long forwardMin = forward.heap.minKey();
+            long backwardMin = backward.heap.minKey();
+            if (best != Long.MAX_VALUE && forwardMin + backwardMin >= best) {
+                break; // No path through unsettled nodes can beat the best meeting found so far
+            }
+            Side side = forwardMin <= backwardMin ? forward : backward;
+            Side other = side == forward ? backward : forward;
+
+            int u = side.heap.poll();
+            side.closed[u] = stamp;
+            if ((++settled & 0xFFF) == 0) Cancellation.check(cancelled);
+            long du = side.dist[u];
+            for (int h = graph.offsets[u]; h < graph.offsets[u + 1]; h++) {
+                int v = graph.targets[h];
+                long dv = du + graph.costs[h];
+                if (side.relax(v, dv, u) && other.stamp[v] == stamp) {
+                    long through = dv + other.dist[v];
+                    if (through < best) {
+                        best = through;
+                        meet = v;
+                    }
+                }
+            }
+        }
+        if (meet < 0) return PathResult.NONE;
+
+        // Walk from the meeting node back to each end
+        int[] nodes = new int[graph.nodeCount];
+        int length = 0;
+        for (int v = meet; v >= 0; v = forward.parent[v]) {
+            nodes[length++] = v;
+        }
+        for (int i = 0, j = length - 1; i < j; i++, j--) {
+            int swap = nodes[i];
+            nodes[i] = nodes[j];
+            nodes[j] = swap;
+        }
+        for (int v = backward.parent[meet]; v >= 0; v = backward.parent[v]) {
+            nodes[length++] = v;
+        }
+        return new PathResult(best, Arrays.copyOf(nodes, length));
+    }
+
+    CsrGraph graph() {
+        return graph;
+    }
+
+    // Number of nodes settled by the last query
+    int settledCount() {
+        return settled;
+    }
+
+    // Search state of one direction, valid only for entries whose stamp matches the current query
+    private final class Side {
+        final IndexedDaryHeap heap;
+        final long[] dist;
+        final int[] parent; // Previous node towards this side's origin, -1 at the origin
+        final int[] stamp;
+        final int[] closed; // Stamp of the query in which the node was settled
+
+        Side(int nodeCount) {
+            heap = new IndexedDaryHeap(nodeCount);
+            dist = new long[nodeCount];
+            parent = new int[nodeCount];
+            stamp = new int[nodeCount];
+            closed = new int[nodeCount];
+        }
+
+        void reset(int origin) {
+            heap.clear();
+            stamp[origin] = PathEngine.this.stamp;
+            dist[origin] = 0;
+            parent[origin] = -1;
+            heap.insertOrDecrease(origin, 0);
+        }
+
+        // Records a tentative distance; returns true if it improved on the current one
+        boolean relax(int v, long d, int from) {
+            if (stamp[v] == PathEngine.this.stamp && (dist[v] <= d || closed[v] == PathEngine.this.stamp)) return false;
+            stamp[v] = PathEngine.this.stamp;
+            dist[v] = d;
+            parent[v] = from;
+            heap.insertOrDecrease(v, d);
+            return true;
+        }
+    }
+}
@@ -0,0 +1,28 @@
+import java.util.*;
+
+/**
+ * A path as node ids plus its total cost.
+ */
+final class PathResult {
+    static final PathResult NONE = new PathResult(-1, new int[0]);
+
+    final long distance; // Total cost, or -1 if there is no path
+    final int[] nodes;   // Node ids from source to target
+
+    PathResult(long distance, int[] nodes) {
+        this.distance = distance;
+        this.nodes = nodes;
+    }
+
+    boolean exists() {
+        return distance >= 0;
+    }
+
+    List<String> names(CsrGraph graph) {
+        List<String> names = new ArrayList<>(nodes.length);
+        for (int node : nodes) {
+            names.add(graph.names[node]);
+        }
+        return names;
+    }
+}
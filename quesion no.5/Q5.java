@@ -1,7 +1,11 @@
 import javax.swing.*;
 import java.awt.*;
+import java.awt.event.*;
+import java.nio.file.Path;
 import java.util.*;
 import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.function.BooleanSupplier;
 
 class Q5 extends JFrame {
 
@@ -63,6 +67,7 @@ class Q5 extends JFrame {
     private JTextArea outputArea;
     private JTextField nodeField1, nodeField2, costField, bandwidthField;
     private GraphPanel graphPanel; // Panel to display the graph
+    private transient GraphTaskRunner tasks; // Runs MST and shortest-path queries off the EDT
 
     public Q5() {
         setTitle("Network Optimization");
@@ -70,7 +75,9 @@ class Q5 extends JFrame {
         setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
         setLayout(new BorderLayout());
 
-        graph = new Graph();
+        JProgressBar progressBar = new JProgressBar();
+        tasks = new GraphTaskRunner(progressBar);
+        graph = new Graph(tasks.cancellation()); // Snapshots are only queried by tasks
         outputArea = new JTextArea(10, 50);
         outputArea.setEditable(false);
         JScrollPane scrollPane = new JScrollPane(outputArea);
@@ -83,6 +90,8 @@ class Q5 extends JFrame {
         JButton addEdgeButton = new JButton("Add Connection");
         JButton optimizeButton = new JButton("Optimize Network");
         JButton shortestPathButton = new JButton("Find Shortest Path");
+        JButton importButton = new JButton("Import...");
+        JButton cancelButton = new JButton("Cancel");
 
         controlPanel.add(new JLabel("Node 1:"));
         controlPanel.add(nodeField1);
@@ -95,6 +104,9 @@ class Q5 extends JFrame {
         controlPanel.add(addEdgeButton);
         controlPanel.add(optimizeButton);
         controlPanel.add(shortestPathButton);
+        controlPanel.add(importButton);
+        controlPanel.add(cancelButton);
+        controlPanel.add(progressBar);
 
         // Add the graph panel to the JFrame
         graphPanel = new GraphPanel();
@@ -105,6 +117,11 @@ class Q5 extends JFrame {
         addEdgeButton.addActionListener(e -> addEdge());
         optimizeButton.addActionListener(e -> optimizeNetwork());
         shortestPathButton.addActionListener(e -> findShortestPath());
+        importButton.addActionListener(e -> importEdgeList());
+        cancelButton.addActionListener(e -> {
+            // The layout only catches the panel up with edits, so it is queued again instead of dropped
+            if (tasks.cancelAll().contains("Layout")) requestLayout();
+        });
     }
 
     private void addEdge() {
@@ -116,179 +133,280 @@ class Q5 extends JFrame {
         outputArea.append(
                 "Added connection: " + node1 + " - " + node2 + " (Cost: " + cost + ", Bandwidth: " + bandwidth + ")\n");
 
-        // Repaint the graph after adding an edge
-        graphPanel.repaint();
+        // Lay the graph out again in the background; the panel repaints when it is done
+        requestLayout();
     }
 
-    private void optimizeNetwork() {
-        List<Edge> mst = graph.findMinimumSpanningTree();
-        outputArea.append("\nOptimized Network (Minimum Cost Spanning Tree):\n");
-        for (Edge edge : mst) {
-            outputArea.append(edge.node1 + " - " + edge.node2 + " (Cost: " + edge.cost + ")\n");
-        }
+    // Loads an edge-list file ("node1 node2 cost bandwidth" per line) with one log line and one relayout
+    private void importEdgeList() {
+        JFileChooser chooser = new JFileChooser();
+        if (chooser.showOpenDialog(this) != JFileChooser.APPROVE_OPTION) return;
+        Path file = chooser.getSelectedFile().toPath();
+        long startTime = System.nanoTime();
+        tasks.submit("Import " + file.getFileName(), progress -> EdgeListImporter.read(file, progress, tasks.cancellation()),
+                batch -> mergeImport(batch, file.getFileName().toString(), startTime));
+    }
+
+    // Merges a parsed batch and recomputes the MST on a copy in the background; the EDT only swaps the
+    // copy in. If edges were added meanwhile, the merge runs again on top of them.
+    private void mergeImport(EdgeBatch batch, String fileName, long startTime) {
+        Graph base = graph.snapshot();
+        tasks.submit("Merge " + fileName, progress -> base.withAll(batch), merged -> {
+            if (graph.snapshot() != base) {
+                mergeImport(batch, fileName, startTime);
+                return;
+            }
+            graph = merged;
+            outputArea.append("Imported " + batch.size + " connections between " + batch.nodeCount + " nodes from "
+                    + fileName + " in " + (System.nanoTime() - startTime) / 1_000_000 + " ms\n");
+            requestLayout();
+        });
+    }
+
+    private void requestLayout() {
+        Graph snapshot = graph.snapshot();
+        GraphLayout previous = graphPanel.layout;
+        tasks.submit("Layout", progress -> snapshot.computeLayout(previous), layout -> {
+            graphPanel.setGraphLayout(layout);
+            if (graph.snapshot() != snapshot) {
+                requestLayout(); // Edges were added while this layout was computed
+            }
+        });
+    }
 
-        // Repaint the graph after optimizing the network
-        graphPanel.repaint();
+    private void optimizeNetwork() {
+        // Computed on a snapshot in the background; repeated clicks while it runs are coalesced
+        Graph snapshot = graph.snapshot();
+        BooleanSupplier cancelled = tasks.cancellation();
+        tasks.submit("Optimize Network", progress -> {
+            progress.accept("Computing minimum spanning tree");
+            List<Edge> mst = snapshot.findMinimumSpanningTree();
+            progress.accept("Formatting " + mst.size() + " connections");
+            StringBuilder text = new StringBuilder("\nOptimized Network (Minimum Cost Spanning Tree):\n");
+            for (Edge edge : mst) {
+                if (cancelled.getAsBoolean()) throw new CancellationException();
+                text.append(edge.node1).append(" - ").append(edge.node2).append(" (Cost: ").append(edge.cost).append(")\n");
+            }
+            return text.toString();
+        }, text -> {
+            outputArea.append(text);
+            // Repaint the graph after optimizing the network
+            graphPanel.repaint();
+        });
     }
 
     private void findShortestPath() {
         String start = nodeField1.getText();
         String end = nodeField2.getText();
-        int distance = graph.findShortestPath(start, end);
-        outputArea.append("\nShortest path from " + start + " to " + end + " is " + distance + " units.\n");
+        Graph snapshot = graph.snapshot();
+        tasks.submit("Shortest Path " + start + " -> " + end, progress -> {
+            int distance = snapshot.findShortestPath(start, end);
+            String text = "\nShortest path from " + start + " to " + end + " is " + distance + " units.\n";
+            if (distance >= 0) {
+                text += "Route: " + String.join(" -> ", snapshot.findShortestRoute(start, end)) + "\n";
+            }
+            return text;
+        }, outputArea::append);
     }
 
     public static void main(String[] args) {
         SwingUtilities.invokeLater(() -> new Q5().setVisible(true));
     }
 
-    // Custom JPanel for drawing the graph
+    // Custom JPanel for drawing the graph; drag to pan, mouse wheel to zoom, double-click to fit
     class GraphPanel extends JPanel {
+        private static final double MAX_SCALE = 8;
+
+        private transient GraphLayout layout; // Latest finished layout, null until the first one
+        private double scale = 1, offsetX, offsetY;
+        private boolean fitted = true; // Follow new layouts until the user moves the view
+        private Point dragStart;
+
+        GraphPanel() {
+            MouseAdapter mouse = new MouseAdapter() {
+                @Override
+                public void mousePressed(MouseEvent e) {
+                    dragStart = e.getPoint();
+                }
+
+                @Override
+                public void mouseDragged(MouseEvent e) {
+                    offsetX += e.getX() - dragStart.x;
+                    offsetY += e.getY() - dragStart.y;
+                    dragStart = e.getPoint();
+                    fitted = false;
+                    repaint();
+                }
+
+                @Override
+                public void mouseWheelMoved(MouseWheelEvent e) {
+                    // Zoom around the cursor, so the point under it stays in place
+                    double factor = Math.pow(1.15, -e.getPreciseWheelRotation());
+                    factor = Math.min(factor, MAX_SCALE / scale);
+                    offsetX = e.getX() - (e.getX() - offsetX) * factor;
+                    offsetY = e.getY() - (e.getY() - offsetY) * factor;
+                    scale *= factor;
+                    fitted = false;
+                    repaint();
+                }
+
+                @Override
+                public void mouseClicked(MouseEvent e) {
+                    if (e.getClickCount() == 2) {
+                        fitted = true;
+                        repaint();
+                    }
+                }
+            };
+            addMouseListener(mouse);
+            addMouseMotionListener(mouse);
+            addMouseWheelListener(mouse);
+        }
+
+        void setGraphLayout(GraphLayout layout) {
+            this.layout = layout;
+            repaint();
+        }
+
         @Override
         protected void paintComponent(Graphics g) {
             super.paintComponent(g);
-
-            // Set graphics properties
-            g.setColor(Color.BLACK);
-            // Call the graph's drawing method to visualize nodes and edges
-            graph.drawGraph(g);
+            if (layout == null) return;
+            if (fitted) {
+                double[] view = layout.fit(getWidth(), getHeight());
+                scale = view[0];
+                offsetX = view[1];
+                offsetY = view[2];
+            }
+            layout.paint(g, scale, offsetX, offsetY);
         }
     }
 }
 
 class Graph {
-    private Map<String, List<Edge>> adjList = new HashMap<>();
+    // Names are interned to int ids and connections kept in primitive CSR columns; this class is a thin facade
+    private final GraphCore core;
+    private final BooleanSupplier cancelled; // Lets snapshot queries and layouts be cancelled
+    private Graph snapshot; // Cached read-only copy, dropped when an edge is added
+
+    public Graph() {
+        this(Cancellation.NEVER);
+    }
+
+    // Queries on snapshots, and layouts, throw CancellationException once cancelled returns true
+    public Graph(BooleanSupplier cancelled) {
+        this(new GraphCore(), cancelled);
+    }
+
+    private Graph(GraphCore core, BooleanSupplier cancelled) {
+        this.core = core;
+        this.cancelled = cancelled;
+    }
 
     public void addEdge(String node1, String node2, int cost, int bandwidth) {
-        adjList.putIfAbsent(node1, new ArrayList<>());
-        adjList.putIfAbsent(node2, new ArrayList<>());
-        adjList.get(node1).add(new Edge(node1, node2, cost, bandwidth));
-        adjList.get(node2).add(new Edge(node2, node1, cost, bandwidth));
+        core.addEdge(node1, node2, cost, bandwidth);
+        snapshot = null;
     }
 
-    public List<Edge> findMinimumSpanningTree() {
-        List<Edge> edges = new ArrayList<>();
-        for (List<Edge> list : adjList.values()) {
-            edges.addAll(list);
+    // Adds every connection of a batch, e.g. one read by EdgeListImporter, recomputing the MST once
+    public void addAll(EdgeBatch batch) {
+        core.addAll(batch);
+        snapshot = null;
+    }
+
+    // New graph with this one's connections plus the batch, with its MST and CSR already built; slow on
+    // large graphs, so call it off the EDT, on a snapshot
+    public Graph withAll(EdgeBatch batch) {
+        GraphCore merged = core.copy();
+        merged.addAll(batch);
+        merged.minimumSpanningTree();
+        merged.csr();
+        return new Graph(merged, cancelled);
+    }
+
+    // Read-only copy of the current graph that a background thread can query while this one keeps changing
+    public Graph snapshot() {
+        if (snapshot == null) {
+            snapshot = new Graph(core.snapshot(cancelled), cancelled);
         }
-        edges.sort(Comparator.comparingInt(e -> e.cost));
+        return snapshot;
+    }
 
+    public List<Edge> findMinimumSpanningTree() {
+        CsrGraph csr = core.csr();
         List<Edge> mst = new ArrayList<>();
-        UnionFind uf = new UnionFind(adjList.keySet());
-        for (Edge edge : edges) {
-            if (uf.union(edge.node1, edge.node2)) {
-                mst.add(edge);
-            }
+        for (int e : core.minimumSpanningTree()) {
+            mst.add(new Edge(csr.names[csr.edgeFrom[e]], csr.names[csr.edgeTo[e]], csr.edgeCost[e], csr.edgeBandwidth[e]));
         }
         return mst;
     }
 
     public int findShortestPath(String start, String end) {
-        PriorityQueue<Node> pq = new PriorityQueue<>(Comparator.comparingInt(n -> n.cost));
-        Map<String, Integer> distances = new HashMap<>();
-        Set<String> visited = new HashSet<>();
-
-        distances.put(start, 0);
-        pq.add(new Node(start, 0));
-
-        while (!pq.isEmpty()) {
-            Node current = pq.poll();
-            if (!visited.add(current.name))
-                continue;
-            if (current.name.equals(end))
-                return current.cost;
-
-            for (Edge neighbor : adjList.getOrDefault(current.name, Collections.emptyList())) {
-                int newDist = current.cost + neighbor.cost;
-                if (newDist < distances.getOrDefault(neighbor.node2, Integer.MAX_VALUE)) {
-                    distances.put(neighbor.node2, newDist);
-                    pq.add(new Node(neighbor.node2, newDist));
-                }
-            }
-        }
-        return -1; // No path found
+        PathResult path = shortestPath(start, end);
+        return path.exists() ? (int) path.distance : -1; // -1 if no path found
     }
 
-    // Method to draw the graph (nodes and edges) on the panel
-    public void drawGraph(Graphics g) {
-        int nodeRadius = 20;
-        Map<String, Point> nodePositions = new HashMap<>();
-        int x = 100, y = 100; // Start position for drawing nodes
-
-        // Example: Draw nodes and edges
-        for (String node : adjList.keySet()) {
-            nodePositions.put(node, new Point(x, y));
-            g.setColor(Color.BLUE);
-            g.fillOval(x - nodeRadius, y - nodeRadius, nodeRadius * 2, nodeRadius * 2); // Draw node as a circle
-            g.setColor(Color.BLACK);
-            g.drawString(node, x - nodeRadius / 2, y - nodeRadius); // Draw node name
-
-            x += 150; // Space out nodes horizontally
-            if (x > 500) { // Move to next row if x position exceeds the width
-                x = 100;
-                y += 150;
-            }
-        }
-
-        // Draw edges (connections between nodes)
-        for (String node : adjList.keySet()) {
-            Point node1Pos = nodePositions.get(node);
-            for (Edge edge : adjList.get(node)) {
-                Point node2Pos = nodePositions.get(edge.node2);
-                g.setColor(Color.RED);
-                g.drawLine(node1Pos.x, node1Pos.y, node2Pos.x, node2Pos.y); // Draw line for the edge
-                g.setColor(Color.BLACK);
-                g.drawString(edge.cost + "", (node1Pos.x + node2Pos.x) / 2, (node1Pos.y + node2Pos.y) / 2); // Draw cost
-                                                                                                            // label
-            }
-        }
+    // Node names along a cheapest path from start to end, or an empty list if there is none
+    public List<String> findShortestRoute(String start, String end) {
+        if (start.equals(end))
+            return List.of(start);
+        return shortestPath(start, end).names(core.csr());
     }
-}
-
-class Edge {
-    String node1, node2;
-    int cost, bandwidth;
 
-    public Edge(String node1, String node2, int cost, int bandwidth) {
-        this.node1 = node1;
-        this.node2 = node2;
-        this.cost = cost;
-        this.bandwidth = bandwidth;
+    private PathResult shortestPath(String start, String end) {
+        if (start.equals(end))
+            return new PathResult(0, new int[0]);
+        int source = core.id(start);
+        int target = core.id(end);
+        if (source < 0 || target < 0)
+            return PathResult.NONE; // Unknown node
+        return core.shortestPath(source, target);
     }
-}
 
-class Node {
-    String name;
-    int cost;
+    // Cheapest route that only uses connections with at least minBandwidth, or Route.NONE
+    public Route findCheapestRoute(String start, String end, int minBandwidth) {
+        int source = core.id(start);
+        int target = core.id(end);
+        if (source < 0 || target < 0)
+            return Route.NONE;
+        return core.routing().cheapest(source, target, minBandwidth);
+    }
 
-    public Node(String name, int cost) {
-        this.name = name;
-        this.cost = cost;
+    // Route with the largest bottleneck bandwidth, the cheapest of those, or Route.NONE
+    public Route findWidestRoute(String start, String end) {
+        int source = core.id(start);
+        int target = core.id(end);
+        if (source < 0 || target < 0)
+            return Route.NONE;
+        return core.routing().widest(source, target);
     }
-}
 
-class UnionFind {
-    private Map<String, String> parent = new HashMap<>();
+    // Cost/bandwidth trade-offs: each route is wider than every cheaper one; at most maxLabels partial routes are explored
+    public List<Route> findRouteFrontier(String start, String end, int maxLabels) {
+        int source = core.id(start);
+        int target = core.id(end);
+        if (source < 0 || target < 0)
+            return List.of();
+        return core.routing().frontier(source, target, maxLabels);
+    }
 
-    public UnionFind(Set<String> nodes) {
-        for (String node : nodes)
-            parent.put(node, node);
+    // Up to k cheapest loop-free routes from start to end, cheapest first, for redundancy planning
+    public List<Route> findKShortestRoutes(String start, String end, int k) {
+        int source = core.id(start);
+        int target = core.id(end);
+        if (source < 0 || target < 0)
+            return List.of();
+        return core.kShortestPaths().find(source, target, k);
     }
 
-    public String find(String node) {
-        if (!parent.get(node).equals(node)) {
-            parent.put(node, find(parent.get(node)));
-        }
-        return parent.get(node);
+    // Precomputes count landmarks so repeated shortest-path queries search less of the network
+    public void preprocessLandmarks(int count) {
+        core.useLandmarks(count);
+        snapshot = null;
     }
 
-    public boolean union(String node1, String node2) {
-        String root1 = find(node1);
-        String root2 = find(node2);
-        if (!root1.equals(root2)) {
-            parent.put(root1, root2);
-            return true;
-        }
-        return false;
+    // Positions for drawing the graph, starting from a previous layout; slow on large graphs, so run it off the EDT
+    public GraphLayout computeLayout(GraphLayout previous) {
+        return GraphLayout.compute(core.csr(), previous, cancelled);
     }
-}
\ No newline at end of file
+}
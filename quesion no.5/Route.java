@@ -0,0 +1,27 @@
+import java.util.*;
+
+/**
+ * A route with its total cost and bottleneck bandwidth.
+ */
+final class Route {
+    static final Route NONE = new Route(-1, 0, List.of());
+
+    final long cost;      // Total cost, or -1 if there is no route
+    final int bandwidth;  // Smallest bandwidth along the route; Integer.MAX_VALUE for a single node
+    final List<String> nodes;
+
+    Route(long cost, int bandwidth, List<String> nodes) {
+        this.cost = cost;
+        this.bandwidth = bandwidth;
+        this.nodes = Collections.unmodifiableList(nodes);
+    }
+
+    boolean exists() {
+        return cost >= 0;
+    }
+
+    @Override
+    public String toString() {
+        return exists() ? String.join(" -> ", nodes) + " (Cost: " + cost + ", Bandwidth: " + bandwidth + ")" : "No route";
+    }
+}
@@ -0,0 +1,273 @@
+import java.util.*;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Routing queries that take bandwidth into account, on a CsrGraph.
+ * The bandwidth of a route is its bottleneck, the smallest bandwidth of its connections.
+ * - cheapest(s, t, B): cheapest route using only connections with bandwidth >= B (Dijkstra on the
+ *   filtered graph).
+ * - widest(s, t): route with the largest bottleneck, the cheapest among those (a max-bottleneck
+ *   Dijkstra followed by cheapest(s, t, bottleneck)).
+ * - frontier(s, t): all Pareto-optimal (cost, bandwidth) routes, by label-setting. Labels leave the
+ *   queue in cost order, so a label at v is dominated exactly when its bandwidth does not exceed the
+ *   widest label already settled at v; the same test against the target prunes labels that cannot
+ *   add a new frontier point. Labels are expanded A*-style towards the target, and the search stops
+ *   as soon as the target has a route as wide as the widest possible one.
+ * Costs are assumed to be non-negative.
+ */
+final class RoutingEngine {
+    private final CsrGraph graph;
+    private final BooleanSupplier cancelled;
+
+    // Node-indexed search state shared by cheapest and widest, invalidated by bumping stamp
+    private final IndexedDaryHeap heap;
+    private final long[] dist;
+    private final int[] parent;
+    private final int[] via; // Half-edge from parent[v] to v
+    private final int[] seen;
+    private final int[] closed;
+    private int stamp;
+
+    RoutingEngine(CsrGraph graph) {
+        this(graph, Cancellation.NEVER);
+    }
+
+    // Queries throw CancellationException once cancelled returns true
+    RoutingEngine(CsrGraph graph, BooleanSupplier cancelled) {
+        this.graph = graph;
+        this.cancelled = cancelled;
+        int n = graph.nodeCount;
+        heap = new IndexedDaryHeap(n);
+        dist = new long[n];
+        parent = new int[n];
+        via = new int[n];
+        seen = new int[n];
+        closed = new int[n];
+    }
+
+    /**
+     * Finds the cheapest route whose connections all have at least the given bandwidth.
+     *
+     * @return The route, or Route.NONE if there is none.
+     */
+    Route cheapest(int source, int target, int minBandwidth) {
+        stamp++;
+        heap.clear();
+        visit(source, 0, -1, -1);
+        int settled = 0;
+        while (!heap.isEmpty()) {
+            int u = heap.poll();
+            closed[u] = stamp;
+            if (u == target) {
+                return route(target, dist[target]);
+            }
+            if ((++settled & 0xFFF) == 0) Cancellation.check(cancelled);
+            for (int h = graph.offsets[u]; h < graph.offsets[u + 1]; h++) {
+                if (graph.bandwidths[h] < minBandwidth) continue;
+                int v = graph.targets[h];
+                long dv = dist[u] + graph.costs[h];
+                if (closed[v] != stamp && (seen[v] != stamp || dv < dist[v])) {
+                    visit(v, dv, u, h);
+                }
+            }
+        }
+        return Route.NONE;
+    }
+
+    /**
+     * Finds a route with the largest bottleneck bandwidth, and the cheapest one among those.
+     *
+     * @return The route, or Route.NONE if target is unreachable.
+     */
+    Route widest(int source, int target) {
+        long bottleneck = bottleneck(source, target);
+        return bottleneck == Long.MIN_VALUE ? Route.NONE : cheapest(source, target, (int) bottleneck);
+    }
+
+    // Largest bottleneck bandwidth of any route, Integer.MAX_VALUE if source == target, Long.MIN_VALUE if unreachable
+    private long bottleneck(int source, int target) {
+        // Max-bottleneck Dijkstra: dist holds the negated bottleneck so the min-heap pops the widest first
+        stamp++;
+        heap.clear();
+        visit(source, -(long) Integer.MAX_VALUE, -1, -1);
+        while (!heap.isEmpty()) {
+            int u = heap.poll();
+            closed[u] = stamp;
+            if (u == target) {
+                return -dist[target];
+            }
+            for (int h = graph.offsets[u]; h < graph.offsets[u + 1]; h++) {
+                int v = graph.targets[h];
+                long dv = Math.max(dist[u], -(long) graph.bandwidths[h]);
+                if (closed[v] != stamp && (seen[v] != stamp || dv < dist[v])) {
+                    visit(v, dv, u, h);
+                }
+            }
+        }
+        return Long.MIN_VALUE;
+    }
+
+    /**
+     * Finds the Pareto frontier of routes: for every achievable bottleneck bandwidth, the cheapest
+     * route, keeping only those that are wider than every cheaper one.
+     *
+     * @param maxLabels Stops after settling this many labels, so huge frontiers stay interactive; the
+     *                  routes found up to then are still Pareto-optimal, only wider ones may be missing.
+     * @return Routes ordered by increasing cost and bandwidth.
+     */
+    List<Route> frontier(int source, int target, int maxLabels) {
+        // No route can be wider than the widest one, so the search ends once the target reaches it
+        long widest = bottleneck(source, target);
+        if (widest == Long.MIN_VALUE) return List.of();
+
+        // Labels are ordered by cost plus the exact unconstrained cost to the target (A*). That bound is
+        // consistent, so labels at one node, and at the target, still leave the queue in cost order
+        long[] remaining = distancesFrom(target);
+        LabelQueue labels = new LabelQueue();
+        int[] widestSettled = new int[graph.nodeCount]; // Widest bandwidth of a settled label per node
+        Arrays.fill(widestSettled, Integer.MIN_VALUE);
+        List<Route> routes = new ArrayList<>();
+
+        labels.push(source, 0, Integer.MAX_VALUE, -1, remaining[source]);
+        int settled = 0;
+        while (!labels.isEmpty() && settled < maxLabels && widestSettled[target] < widest) {
+            int label = labels.pop();
+            int u = labels.node[label];
+            int bandwidth = labels.bandwidth[label];
+            // Cost is not lower than any settled label here, so it only survives if it is wider
+            if (bandwidth <= widestSettled[u] || bandwidth <= widestSettled[target]) continue;
+            widestSettled[u] = bandwidth;
+            if ((++settled & 0xFFF) == 0) Cancellation.check(cancelled);
+            if (u == target) {
+                routes.add(labels.route(label, graph));
+                continue;
+            }
+            long cost = labels.cost[label];
+            for (int h = graph.offsets[u]; h < graph.offsets[u + 1]; h++) {
+                int v = graph.targets[h];
+                int width = Math.min(bandwidth, graph.bandwidths[h]);
+                if (width > widestSettled[v] && width > widestSettled[target]) {
+                    long next = cost + graph.costs[h];
+                    labels.push(v, next, width, label, next + remaining[v]);
+                }
+            }
+        }
+        return routes;
+    }
+
+    // Unconstrained cheapest cost from origin to every node (the graph is undirected)
+    private long[] distancesFrom(int origin) {
+        stamp++;
+        heap.clear();
+        visit(origin, 0, -1, -1);
+        while (!heap.isEmpty()) {
+            int u = heap.poll();
+            closed[u] = stamp;
+            for (int h = graph.offsets[u]; h < graph.offsets[u + 1]; h++) {
+                int v = graph.targets[h];
+                long dv = dist[u] + graph.costs[h];
+                if (closed[v] != stamp && (seen[v] != stamp || dv < dist[v])) {
+                    visit(v, dv, u, h);
+                }
+            }
+        }
+        long[] result = new long[graph.nodeCount];
+        for (int v = 0; v < result.length; v++) {
+            result[v] = seen[v] == stamp ? dist[v] : Long.MAX_VALUE / 2;
+        }
+        return result;
+    }
+
+    private void visit(int v, long d, int from, int halfEdge) {
+        seen[v] = stamp;
+        dist[v] = d;
+        parent[v] = from;
+        via[v] = halfEdge;
+        heap.insertOrDecrease(v, d);
+    }
+
+    // Route along the parent links of the last search, with its cost and bottleneck
+    private Route route(int target, long cost) {
+        List<String> names = new ArrayList<>();
+        int bandwidth = Integer.MAX_VALUE;
+        for (int v = target; v >= 0; v = parent[v]) {
+            names.add(graph.names[v]);
+            if (parent[v] >= 0) {
+                bandwidth = Math.min(bandwidth, graph.bandwidths[via[v]]);
+            }
+        }
+        Collections.reverse(names);
+        return new Route(cost, bandwidth, names);
+    }
+
+    // Growable label store with a binary heap ordered by (key, wider first)
+    private static final class LabelQueue {
+        int[] node = new int[64];
+        long[] cost = new long[64];
+        long[] key = new long[64]; // Cost plus lower bound of the rest of the route
+        int[] bandwidth = new int[64];
+        int[] parent = new int[64]; // Previous label on the route, -1 at the source
+        private int labelCount;
+        private int[] heap = new int[64];
+        private int size;
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        void push(int v, long c, int b, int from, long k) {
+            if (labelCount == node.length) {
+                int capacity = labelCount * 2;
+                node = Arrays.copyOf(node, capacity);
+                cost = Arrays.copyOf(cost, capacity);
+                key = Arrays.copyOf(key, capacity);
+                bandwidth = Arrays.copyOf(bandwidth, capacity);
+                parent = Arrays.copyOf(parent, capacity);
+            }
+            int label = labelCount++;
+            node[label] = v;
+            cost[label] = c;
+            key[label] = k;
+            bandwidth[label] = b;
+            parent[label] = from;
+            if (size == heap.length) {
+                heap = Arrays.copyOf(heap, size * 2);
+            }
+            int i = size++;
+            while (i > 0 && before(label, heap[(i - 1) / 2])) {
+                heap[i] = heap[(i - 1) / 2];
+                i = (i - 1) / 2;
+            }
+            heap[i] = label;
+        }
+
+        int pop() {
+            int top = heap[0];
+            int last = heap[--size];
+            int i = 0;
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= size) break;
+                if (child + 1 < size && before(heap[child + 1], heap[child])) child++;
+                if (!before(heap[child], last)) break;
+                heap[i] = heap[child];
+                i = child;
+            }
+            heap[i] = last;
+            return top;
+        }
+
+        private boolean before(int a, int b) {
+            return key[a] != key[b] ? key[a] < key[b] : bandwidth[a] > bandwidth[b];
+        }
+
+        Route route(int label, CsrGraph graph) {
+            List<String> names = new ArrayList<>();
+            for (int l = label; l >= 0; l = parent[l]) {
+                names.add(graph.names[node[l]]);
+            }
+            Collections.reverse(names);
+            return new Route(cost[label], bandwidth[label], names);
+        }
+    }
+}
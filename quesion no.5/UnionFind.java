@@ -0,0 +1,69 @@
+import java.util.*;
+
+/**
+ * Int-indexed disjoint sets with union by rank and path halving.
+ * The node range can grow, since the network gains nodes while the incremental MST is kept.
+ */
+final class UnionFind {
+    private int[] parent;
+    private byte[] rank; // Upper bound on tree height, at most log2(n) so a byte is enough
+    private int size;
+    private int sets;
+
+    UnionFind(int size) {
+        parent = new int[Math.max(size, 16)];
+        rank = new byte[parent.length];
+        grow(size);
+    }
+
+    UnionFind(UnionFind source) {
+        parent = Arrays.copyOf(source.parent, Math.max(source.size, 16));
+        rank = Arrays.copyOf(source.rank, parent.length);
+        size = source.size;
+        sets = source.sets;
+    }
+
+    // Adds singleton sets until the ids 0 .. size - 1 exist
+    void grow(int size) {
+        if (size > parent.length) {
+            int capacity = Math.max(size, parent.length * 2);
+            parent = Arrays.copyOf(parent, capacity);
+            rank = Arrays.copyOf(rank, capacity);
+        }
+        for (int x = this.size; x < size; x++) {
+            parent[x] = x;
+            sets++;
+        }
+        this.size = Math.max(this.size, size);
+    }
+
+    int find(int x) {
+        while (parent[x] != x) {
+            parent[x] = parent[parent[x]]; // Path halving
+            x = parent[x];
+        }
+        return x;
+    }
+
+    // Merges the sets of a and b; returns false if they were already the same set
+    boolean union(int a, int b) {
+        int rootA = find(a);
+        int rootB = find(b);
+        if (rootA == rootB) return false;
+        if (rank[rootA] < rank[rootB]) {
+            parent[rootA] = rootB;
+        } else if (rank[rootA] > rank[rootB]) {
+            parent[rootB] = rootA;
+        } else {
+            parent[rootB] = rootA;
+            rank[rootA]++;
+        }
+        sets--;
+        return true;
+    }
+
+    // Number of disjoint sets, which is the number of connected components
+    int sets() {
+        return sets;
+    }
+}
@@ -0,0 +1,116 @@
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Column-oriented tweet storage. Each field is a primitive column indexed by row: user id, tweet id
+ * and date as an epoch day. Tweet text is UTF-8 in one shared byte arena addressed by offsets.
+ * Hashtags are extracted once at append time and dictionary-encoded into a postings column, so
+ * trending queries only loop over int arrays.
+ */
+class ColumnarTweetStore {
+    private int[] userIds = new int[1024];
+    private int[] tweetIds = new int[1024];
+    private int[] days = new int[1024];
+    private int[] textOffsets = new int[1025];    // Row r's text is arena[textOffsets[r] .. textOffsets[r + 1])
+    private byte[] arena = new byte[64 * 1024];
+    private int[] postingOffsets = new int[1025]; // Row r's hashtag ids are postings[postingOffsets[r] .. postingOffsets[r + 1])
+    private int[] postings = new int[4096];
+    private final HashtagTable dictionary = new HashtagTable();
+    private int rows;
+
+    /**
+     * Appends a tweet.
+     *
+     * @param tweet Tweet to append.
+     */
+    void append(TweetsTable.Tweet tweet) {
+        append(tweet.getUserId(), tweet.getTweetId(), tweet.getTweetDate(), tweet.getTweet());
+    }
+
+    /**
+     * Appends a tweet from its fields.
+     *
+     * @param userId    User id.
+     * @param tweetId   Tweet id.
+     * @param tweetDate Date formatted as "yyyy-MM-dd".
+     * @param text      Tweet text.
+     */
+    void append(int userId, int tweetId, String tweetDate, String text) {
+        if (rows == userIds.length) {
+            int capacity = userIds.length * 2;
+            userIds = Arrays.copyOf(userIds, capacity);
+            tweetIds = Arrays.copyOf(tweetIds, capacity);
+            days = Arrays.copyOf(days, capacity);
+            textOffsets = Arrays.copyOf(textOffsets, capacity + 1);
+            postingOffsets = Arrays.copyOf(postingOffsets, capacity + 1);
+        }
+        userIds[rows] = userId;
+        tweetIds[rows] = tweetId;
+        days[rows] = HashtagRollupIndex.epochDay(tweetDate);
+
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        int textStart = textOffsets[rows];
+        if ((long) textStart + bytes.length > Integer.MAX_VALUE - 8) {
+            throw new IllegalStateException("Text arena is full (2 GB); split tweets across several stores");
+        }
+        if (textStart + bytes.length > arena.length) {
+            arena = Arrays.copyOf(arena, (int) Math.min(Integer.MAX_VALUE - 8, Math.max(arena.length * 2L, textStart + bytes.length)));
+        }
+        System.arraycopy(bytes, 0, arena, textStart, bytes.length);
+        textOffsets[rows + 1] = textStart + bytes.length;
+
+        int postingEnd = postingOffsets[rows];
+        int start = HashtagScanner.next(text, 0);
+        while (start >= 0) {
+            int end = HashtagScanner.end(text, start);
+            if (postingEnd == postings.length) {
+                postings = Arrays.copyOf(postings, postingEnd * 2);
+            }
+            postings[postingEnd++] = dictionary.add(text, start, end);
+            start = HashtagScanner.next(text, end);
+        }
+        postingOffsets[rows + 1] = postingEnd;
+        rows++;
+    }
+
+    int size() {
+        return rows;
+    }
+
+    int userId(int row) {
+        return userIds[row];
+    }
+
+    int tweetId(int row) {
+        return tweetIds[row];
+    }
+
+    int epochDay(int row) {
+        return days[row];
+    }
+
+    String text(int row) {
+        return new String(arena, textOffsets[row], textOffsets[row + 1] - textOffsets[row], StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Returns the top k hashtags of tweets dated between two epoch days (inclusive), sorted by count
+     * (descending), then by hashtag (descending).
+     *
+     * @param fromDay First epoch day of the range.
+     * @param toDay   Last epoch day of the range.
+     * @param k       Maximum number of hashtags to return.
+     * @return Hashtags and their counts.
+     */
+    List<Map.Entry<String, Integer>> topHashtags(int fromDay, int toDay, int k) {
+        int[] counts = new int[dictionary.size()];
+        for (int row = 0; row < rows; row++) {
+            int day = days[row];
+            if (day < fromDay || day > toDay) continue;
+            for (int p = postingOffsets[row]; p < postingOffsets[row + 1]; p++) {
+                counts[postings[p]]++;
+            }
+        }
+        return dictionary.top(counts, k);
+    }
+}
@@ -0,0 +1,67 @@
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Thread-safe hashtag counter for many concurrent producers.
+ * ConcurrentHashMap already locks per bin and reads without locking, and each count is a LongAdder,
+ * so threads bumping the same popular hashtag do not contend on a single word. top() can run at any
+ * time and reads the counts as they are at that moment.
+ */
+class ConcurrentHashtagCounter {
+    private final ConcurrentHashMap<String, LongAdder> counts = new ConcurrentHashMap<>();
+
+    /**
+     * Counts every hashtag in the text. Safe to call from any number of threads.
+     *
+     * @param text Text to scan.
+     */
+    void ingest(CharSequence text) {
+        HashtagKey probe = new HashtagKey(); // One per call, so threads never share it
+        int start = HashtagScanner.next(text, 0);
+        while (start >= 0) {
+            int end = HashtagScanner.end(text, start);
+            LongAdder adder = counts.get(probe.set(text, start, end)); // Lock-free, allocation-free fast path
+            if (adder == null) {
+                adder = counts.computeIfAbsent(probe.toString(), h -> new LongAdder());
+            }
+            adder.increment();
+            start = HashtagScanner.next(text, end);
+        }
+    }
+
+    long count(String hashtag) {
+        LongAdder adder = counts.get(hashtag);
+        return adder == null ? 0 : adder.sum();
+    }
+
+    /**
+     * Returns the k most frequent hashtags, sorted by count (descending), then by hashtag (descending).
+     * Selection uses a heap of at most k entries instead of sorting every hashtag.
+     *
+     * @param k Maximum number of hashtags to return.
+     * @return Hashtags and their counts.
+     */
+    List<Map.Entry<String, Long>> top(int k) {
+        Comparator<Map.Entry<String, Long>> ranking = (a, b) -> {
+            int countCompare = b.getValue().compareTo(a.getValue());
+            return countCompare != 0 ? countCompare : b.getKey().compareTo(a.getKey());
+        };
+        PriorityQueue<Map.Entry<String, Long>> heap = new PriorityQueue<>(ranking.reversed());
+        for (Map.Entry<String, LongAdder> entry : counts.entrySet()) {
+            long count = entry.getValue().sum();
+            if (heap.size() == k && k > 0) {
+                Map.Entry<String, Long> weakest = heap.peek();
+                if (count < weakest.getValue()
+                        || (count == weakest.getValue() && entry.getKey().compareTo(weakest.getKey()) < 0)) {
+                    continue; // Cannot enter the top k, skip the allocation
+                }
+            }
+            heap.add(new AbstractMap.SimpleImmutableEntry<>(entry.getKey(), count));
+            if (heap.size() > k) heap.poll();
+        }
+        List<Map.Entry<String, Long>> result = new ArrayList<>(heap);
+        result.sort(ranking);
+        return result;
+    }
+}
@@ -0,0 +1,93 @@
+import java.util.*;
+
+/**
+ * Answers single-source shortest path queries on a road graph with on-demand BFS.
+ * Without a cache every query reuses one int[] row, so memory stays O(n). With a byte budget the
+ * most recently used rows are kept in an LRU map and reused by later queries from the same source.
+ */
+class DistanceOracle {
+    private final RoadGraph graph;
+    private final int[] queue;
+    private final long maxCachedRows;
+
+    private int[] row;                    // Reusable row when the cache is disabled
+    private final LinkedHashMap<Integer, int[]> cache;
+    private int[] recycled;               // Last evicted row, reused for the next BFS
+
+    /**
+     * Creates an oracle that keeps a single reusable row.
+     *
+     * @param graph Road graph.
+     */
+    DistanceOracle(RoadGraph graph) {
+        this(graph, 0);
+    }
+
+    /**
+     * Creates an oracle that caches BFS rows up to the given memory budget.
+     *
+     * @param graph       Road graph.
+     * @param cacheBytes  Memory budget for cached rows; 0 disables caching.
+     */
+    DistanceOracle(RoadGraph graph, long cacheBytes) {
+        this.graph = graph;
+        this.queue = new int[graph.size()];
+        this.maxCachedRows = cacheBytes / (4L * Math.max(1, graph.size()));
+        this.cache = maxCachedRows == 0 ? null : new LinkedHashMap<Integer, int[]>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, int[]> eldest) {
+                if (size() > maxCachedRows) {
+                    recycled = eldest.getValue();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Returns the BFS distance from source to every node (-1 if unreachable).
+     * Roads are bidirectional, so the row also gives the distance from every node back to source.
+     * The returned array must not be modified and is only valid until the next call.
+     *
+     * @param source Source node.
+     * @return Distance row indexed by node.
+     */
+    int[] distancesFrom(int source) {
+        if (cache == null) {
+            if (row == null) {
+                row = new int[graph.size()];
+            }
+            bfs(source, row);
+            return row;
+        }
+
+        int[] cached = cache.get(source);
+        if (cached != null) return cached;
+
+        int[] fresh = recycled != null ? recycled : new int[graph.size()];
+        recycled = null;
+        bfs(source, fresh);
+        cache.put(source, fresh);
+        return fresh;
+    }
+
+    private void bfs(int source, int[] dist) {
+        if (graph.storedDistances(source, dist)) return;
+
+        Arrays.fill(dist, -1);
+        int head = 0, tail = 0;
+        queue[tail++] = source;
+        dist[source] = 0;
+        while (head < tail) {
+            int u = queue[head++];
+            for (int e = graph.begin(u); e < graph.end(u); e++) {
+                int v = graph.target(e);
+                if (dist[v] == -1) {
+                    dist[v] = dist[u] + 1;
+                    queue[tail++] = v;
+                }
+            }
+        }
+    }
+}
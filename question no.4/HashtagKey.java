@@ -0,0 +1,51 @@
+/**
+ * Reusable lookup key for a range of a CharSequence, so a map keyed by String can be probed for a
+ * hashtag without allocating one. hashCode matches String.hashCode of the same characters, and
+ * equals accepts a String with those characters; Map.get(key) compares with key.equals(k), so the
+ * probe finds the String entry. Never store a probe in a map; use toString() for the key to insert.
+ */
+final class HashtagKey {
+    private CharSequence text;
+    private int start;
+    private int end;
+    private int hash;
+
+    /**
+     * Points this key at text[start, end).
+     *
+     * @return This key.
+     */
+    HashtagKey set(CharSequence text, int start, int end) {
+        this.text = text;
+        this.start = start;
+        this.end = end;
+        int h = 0;
+        for (int i = start; i < end; i++) {
+            h = 31 * h + text.charAt(i);
+        }
+        this.hash = h;
+        return this;
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (!(other instanceof String)) return false;
+        String key = (String) other;
+        if (key.length() != end - start) return false;
+        for (int i = 0; i < key.length(); i++) {
+            if (key.charAt(i) != text.charAt(start + i)) return false;
+        }
+        return true;
+    }
+
+    // Allocates the String, for inserting a new key
+    @Override
+    public String toString() {
+        return text.subSequence(start, end).toString();
+    }
+}
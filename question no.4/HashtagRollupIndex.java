@@ -0,0 +1,162 @@
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * Hashtag counts rolled up by day, ISO week (Monday to Sunday) and calendar month.
+ * A date-range query covers the range with the fewest whole months, weeks and days and merges only
+ * those buckets, so its cost depends on the number and size of buckets, not on the number of tweets.
+ */
+class HashtagRollupIndex {
+    private final HashtagTable dictionary = new HashtagTable(); // Hashtag <-> dense id
+    private final Map<Integer, IntCounts> days = new HashMap<>();
+    private final Map<Integer, IntCounts> weeks = new HashMap<>();
+    private final Map<Integer, IntCounts> months = new HashMap<>();
+
+    /**
+     * Adds every hashtag of a tweet to its day, week and month buckets.
+     *
+     * @param tweet Tweet to index.
+     */
+    void add(TweetsTable.Tweet tweet) {
+        int day = epochDay(tweet.getTweetDate());
+        IntCounts dayCounts = days.computeIfAbsent(day, d -> new IntCounts());
+        IntCounts weekCounts = weeks.computeIfAbsent(weekOf(day), w -> new IntCounts());
+        IntCounts monthCounts = months.computeIfAbsent(monthOf(LocalDate.ofEpochDay(day)), m -> new IntCounts());
+
+        String text = tweet.getTweet();
+        int start = HashtagScanner.next(text, 0);
+        while (start >= 0) {
+            int end = HashtagScanner.end(text, start);
+            int tag = dictionary.add(text, start, end);
+            dayCounts.add(tag, 1);
+            weekCounts.add(tag, 1);
+            monthCounts.add(tag, 1);
+            start = HashtagScanner.next(text, end);
+        }
+    }
+
+    /**
+     * Returns the top k hashtags between two dates (inclusive, formatted like tweetDate), sorted by
+     * count (descending), then by hashtag (descending).
+     *
+     * @param from First date of the range, e.g. "2024-02-01".
+     * @param to   Last date of the range, e.g. "2024-02-29".
+     * @param k    Maximum number of hashtags to return.
+     * @return Hashtags and their counts.
+     */
+    List<Map.Entry<String, Integer>> topHashtags(String from, String to, int k) {
+        return topHashtags(epochDay(from), epochDay(to), k);
+    }
+
+    /**
+     * Same as {@link #topHashtags(String, String, int)} with the range given as epoch days.
+     */
+    List<Map.Entry<String, Integer>> topHashtags(int fromDay, int toDay, int k) {
+        IntCounts merged = new IntCounts();
+        int day = fromDay;
+        while (day <= toDay) {
+            LocalDate date = LocalDate.ofEpochDay(day);
+            int monthEnd = day + date.lengthOfMonth() - date.getDayOfMonth();
+            if (date.getDayOfMonth() == 1 && monthEnd <= toDay) {
+                merged.addAll(months.get(monthOf(date)));
+                day = monthEnd + 1;
+            } else if (Math.floorMod(day + 3, 7) == 0 && day + 6 <= toDay) { // Monday starting a whole week
+                merged.addAll(weeks.get(weekOf(day)));
+                day += 7;
+            } else {
+                merged.addAll(days.get(day));
+                day++;
+            }
+        }
+        return top(merged, k);
+    }
+
+    // Bounded heap over the merged counts, weakest entry at the root
+    private List<Map.Entry<String, Integer>> top(IntCounts counts, int k) {
+        Comparator<int[]> ranking = (a, b) -> a[1] != b[1] ? Integer.compare(b[1], a[1]) : dictionary.compareKeys(b[0], a[0]);
+        PriorityQueue<int[]> heap = new PriorityQueue<>(ranking.reversed());
+        for (int i = 0; i < counts.keys.length; i++) {
+            if (counts.used[i]) {
+                heap.add(new int[] {counts.keys[i], counts.values[i]});
+                if (heap.size() > k) heap.poll();
+            }
+        }
+        List<int[]> best = new ArrayList<>(heap);
+        best.sort(ranking);
+        List<Map.Entry<String, Integer>> result = new ArrayList<>(best.size());
+        for (int[] entry : best) {
+            result.add(new AbstractMap.SimpleImmutableEntry<>(dictionary.key(entry[0]), entry[1]));
+        }
+        return result;
+    }
+
+    // Parses "yyyy-MM-dd" into days since 1970-01-01
+    static int epochDay(String date) {
+        int year = Integer.parseInt(date, 0, 4, 10);
+        int month = Integer.parseInt(date, 5, 7, 10);
+        int dayOfMonth = Integer.parseInt(date, 8, 10, 10);
+        return (int) LocalDate.of(year, month, dayOfMonth).toEpochDay();
+    }
+
+    // Monday-aligned week number; epoch day 0 (1970-01-01) was a Thursday
+    private static int weekOf(int day) {
+        return Math.floorDiv(day + 3, 7);
+    }
+
+    private static int monthOf(LocalDate date) {
+        return date.getYear() * 12 + date.getMonthValue() - 1;
+    }
+
+    /**
+     * Open-addressing map from hashtag id to count.
+     */
+    static class IntCounts {
+        int[] keys = new int[16];
+        int[] values = new int[16];
+        boolean[] used = new boolean[16];
+        private int size;
+
+        void add(int key, int delta) {
+            int mask = keys.length - 1;
+            int hash = key * 0x9E3779B9;
+            int slot = (hash ^ (hash >>> 16)) & mask;
+            while (used[slot]) {
+                if (keys[slot] == key) {
+                    values[slot] += delta;
+                    return;
+                }
+                slot = (slot + 1) & mask;
+            }
+            used[slot] = true;
+            keys[slot] = key;
+            values[slot] = delta;
+            if (++size * 2 > keys.length) {
+                grow();
+            }
+        }
+
+        void addAll(IntCounts other) {
+            if (other == null) return;
+            for (int i = 0; i < other.keys.length; i++) {
+                if (other.used[i]) {
+                    add(other.keys[i], other.values[i]);
+                }
+            }
+        }
+
+        private void grow() {
+            int[] oldKeys = keys;
+            int[] oldValues = values;
+            boolean[] oldUsed = used;
+            keys = new int[oldKeys.length * 2];
+            values = new int[oldKeys.length * 2];
+            used = new boolean[oldKeys.length * 2];
+            size = 0;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldUsed[i]) {
+                    add(oldKeys[i], oldValues[i]);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,46 @@
+/**
+ * Finds hashtags in text without regex or allocation. A hashtag is '#' followed by one or more word
+ * characters [a-zA-Z0-9_], which is exactly what the pattern #\w+ matches.
+ */
+final class HashtagScanner {
+
+    private HashtagScanner() {
+    }
+
+    /**
+     * Finds the next hashtag at or after from.
+     *
+     * @param text Text to scan.
+     * @param from Index to start scanning at.
+     * @return Index of the hashtag's '#', or -1 if there are no more hashtags.
+     */
+    static int next(CharSequence text, int from) {
+        int length = text.length();
+        for (int i = from; i < length - 1; i++) {
+            if (text.charAt(i) == '#' && isWordChar(text.charAt(i + 1))) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Finds the end of the hashtag starting at start.
+     *
+     * @param text  Text being scanned.
+     * @param start Index of the hashtag's '#'.
+     * @return Index just past the hashtag's last word character.
+     */
+    static int end(CharSequence text, int start) {
+        int length = text.length();
+        int i = start + 1;
+        while (i < length && isWordChar(text.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    static boolean isWordChar(int c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '_';
+    }
+}
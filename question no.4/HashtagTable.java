@@ -0,0 +1,227 @@
+import java.nio.CharBuffer;
+import java.util.*;
+
+/**
+ * Open-addressing hashtag counter keyed by character spans.
+ * Keys are copied once into a shared char arena the first time they are seen, so counting an existing
+ * hashtag allocates nothing. Strings are only created for the hashtags returned by top().
+ */
+class HashtagTable {
+    private int[] slots = new int[64];       // Entry id + 1 per slot, 0 for empty
+    private int[] hashes = new int[32];      // Per entry: hash of the key
+    private int[] keyStart = new int[32];    // Per entry: offset of the key in the arena
+    private int[] keyLength = new int[32];   // Per entry: key length
+    private int[] counts = new int[32];      // Per entry: number of occurrences
+    private char[] arena = new char[512];
+    private int arenaSize;
+    private int size;
+
+    /**
+     * Counts every hashtag in the text.
+     *
+     * @param text Text to scan.
+     */
+    void addAll(CharSequence text) {
+        int start = HashtagScanner.next(text, 0);
+        while (start >= 0) {
+            int end = HashtagScanner.end(text, start);
+            add(text, start, end);
+            start = HashtagScanner.next(text, end);
+        }
+    }
+
+    /**
+     * Counts one occurrence of the hashtag text[start, end).
+     *
+     * @param text  Text holding the hashtag.
+     * @param start Index of the hashtag's '#'.
+     * @param end   Index just past the hashtag.
+     * @return Dense id of the hashtag, stable for the lifetime of the table.
+     */
+    int add(CharSequence text, int start, int end) {
+        return add(text, start, end, 1);
+    }
+
+    /**
+     * Adds the counts of another table into this one.
+     *
+     * @param other Table to merge in.
+     */
+    void addAll(HashtagTable other) {
+        CharSequence keys = CharBuffer.wrap(other.arena);
+        for (int id = 0; id < other.size; id++) {
+            int start = other.keyStart[id];
+            add(keys, start, start + other.keyLength[id], other.counts[id]);
+        }
+    }
+
+    private int add(CharSequence text, int start, int end, int delta) {
+        int hash = 0;
+        for (int i = start; i < end; i++) {
+            hash = 31 * hash + text.charAt(i);
+        }
+        int mask = slots.length - 1;
+        int slot = spread(hash) & mask;
+        while (slots[slot] != 0) {
+            int id = slots[slot] - 1;
+            if (hashes[id] == hash && keyEquals(id, text, start, end)) {
+                counts[id] += delta;
+                return id;
+            }
+            slot = (slot + 1) & mask;
+        }
+        int id = insert(hash, text, start, end, delta);
+        slots[slot] = id + 1;
+        if (size * 2 > slots.length) {
+            rehash();
+        }
+        return id;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Returns the k most frequent hashtags, sorted by count (descending), then by hashtag (descending).
+     *
+     * @param k Maximum number of hashtags to return.
+     * @return Hashtags and their counts.
+     */
+    List<Map.Entry<String, Integer>> top(int k) {
+        return top(counts, k);
+    }
+
+    /**
+     * Ranks this table's hashtags by externally computed counts, e.g. counts over a subset of tweets.
+     * Hashtags with a count of zero are skipped.
+     *
+     * @param counts Count per hashtag id.
+     * @param k      Maximum number of hashtags to return.
+     * @return Hashtags and their counts, sorted like {@link #top(int)}.
+     */
+    List<Map.Entry<String, Integer>> top(int[] counts, int k) {
+        // Min-heap of the best k entry ids seen so far, weakest at the root
+        int[] heap = new int[Math.max(0, Math.min(k, size))];
+        int heapSize = 0;
+        for (int id = 0; id < size && heap.length > 0; id++) {
+            if (counts[id] == 0) continue;
+            if (heapSize < heap.length) {
+                heap[heapSize] = id;
+                siftUp(counts, heap, heapSize++);
+            } else if (compareEntries(counts, id, heap[0]) < 0) {
+                heap[0] = id;
+                siftDown(counts, heap, heapSize);
+            }
+        }
+
+        // Pop weakest first, then reverse into ranking order
+        List<Map.Entry<String, Integer>> result = new ArrayList<>(heapSize);
+        while (heapSize > 0) {
+            int id = heap[0];
+            heap[0] = heap[--heapSize];
+            siftDown(counts, heap, heapSize);
+            result.add(new AbstractMap.SimpleImmutableEntry<>(key(id), counts[id]));
+        }
+        Collections.reverse(result);
+        return result;
+    }
+
+    private void siftUp(int[] counts, int[] heap, int i) {
+        int id = heap[i];
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (compareEntries(counts, heap[parent], id) > 0) break; // Parent is already weaker
+            heap[i] = heap[parent];
+            i = parent;
+        }
+        heap[i] = id;
+    }
+
+    private void siftDown(int[] counts, int[] heap, int heapSize) {
+        int i = 0;
+        int id = heap[0];
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= heapSize) break;
+            if (child + 1 < heapSize && compareEntries(counts, heap[child + 1], heap[child]) > 0) child++;
+            if (compareEntries(counts, heap[child], id) < 0) break; // Child is stronger, stop here
+            heap[i] = heap[child];
+            i = child;
+        }
+        heap[i] = id;
+    }
+
+    // Negative if entry a ranks ahead of entry b: higher count first, then the larger hashtag
+    private int compareEntries(int[] counts, int a, int b) {
+        if (counts[a] != counts[b]) {
+            return counts[a] > counts[b] ? -1 : 1;
+        }
+        return -compareKeys(a, b);
+    }
+
+    // Same ordering as String.compareTo
+    int compareKeys(int a, int b) {
+        int lengthA = keyLength[a], lengthB = keyLength[b];
+        int limit = Math.min(lengthA, lengthB);
+        for (int i = 0; i < limit; i++) {
+            char ca = arena[keyStart[a] + i], cb = arena[keyStart[b] + i];
+            if (ca != cb) return ca - cb;
+        }
+        return lengthA - lengthB;
+    }
+
+    String key(int id) {
+        return new String(arena, keyStart[id], keyLength[id]);
+    }
+
+    private boolean keyEquals(int id, CharSequence text, int start, int end) {
+        if (keyLength[id] != end - start) return false;
+        int offset = keyStart[id] - start;
+        for (int i = start; i < end; i++) {
+            if (arena[offset + i] != text.charAt(i)) return false;
+        }
+        return true;
+    }
+
+    private int insert(int hash, CharSequence text, int start, int end, int count) {
+        int id = size++;
+        if (id == counts.length) {
+            int capacity = id * 2;
+            hashes = Arrays.copyOf(hashes, capacity);
+            keyStart = Arrays.copyOf(keyStart, capacity);
+            keyLength = Arrays.copyOf(keyLength, capacity);
+            counts = Arrays.copyOf(counts, capacity);
+        }
+        int length = end - start;
+        if (arenaSize + length > arena.length) {
+            arena = Arrays.copyOf(arena, Math.max(arena.length * 2, arenaSize + length));
+        }
+        for (int i = 0; i < length; i++) {
+            arena[arenaSize + i] = text.charAt(start + i);
+        }
+        hashes[id] = hash;
+        keyStart[id] = arenaSize;
+        keyLength[id] = length;
+        counts[id] = count;
+        arenaSize += length;
+        return id;
+    }
+
+    private void rehash() {
+        slots = new int[slots.length * 2];
+        int mask = slots.length - 1;
+        for (int id = 0; id < size; id++) {
+            int slot = spread(hashes[id]) & mask;
+            while (slots[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            slots[slot] = id + 1;
+        }
+    }
+
+    private static int spread(int hash) {
+        hash *= 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+}
@@ -1,3 +1,5 @@
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.*;
 
 public class MinimumRoads {
@@ -21,38 +23,109 @@ public class MinimumRoads {
      * @param packages Array indicating locations with packages (1 for package present, 0 otherwise).
      * @param roads    2D array representing bidirectional roads between nodes.
      * @return Minimum number of roads required to collect all packages and return to start, or -1 if not possible.
+     * @throws IllegalStateException If there are too many packages to search within the memory budget.
      */
     public static int minRoads(int[] packages, int[][] roads) {
         int n = packages.length;
         if (n == 0) return 0; // No nodes, no roads needed
 
+        RoadGraph graph = RoadGraph.fromRoads(n, roads);
+        return minRoads(packages, graph, new DistanceOracle(graph));
+    }
+
+    /**
+     * Same as {@link #minRoads(int[], int[][])}, but the package-independent precomputation is loaded
+     * from (or written to) a memory-mapped cache file in cacheDir keyed by a fingerprint of the roads.
+     *
+     * @param packages Array indicating locations with packages (1 for package present, 0 otherwise).
+     * @param roads    2D array representing bidirectional roads between nodes.
+     * @param cacheDir Directory holding cache files.
+     * @return Minimum number of roads required to collect all packages and return to start, or -1 if not possible.
+     * @throws IOException If the cache file cannot be read or written.
+     * @throws IllegalStateException If there are too many packages to search within the memory budget.
+     */
+    public static int minRoads(int[] packages, int[][] roads, Path cacheDir) throws IOException {
+        int n = packages.length;
+        if (n == 0) return 0; // No nodes, no roads needed
+
+        RoadNetworkCache cache = RoadNetworkCache.open(cacheDir, n, roads, DEFAULT_CACHED_DISTANCE_BYTES);
+        return minRoads(packages, cache.graph(), new DistanceOracle(cache.graph()));
+    }
+
+    // Budget for BFS rows stored in a new cache file
+    static final long DEFAULT_CACHED_DISTANCE_BYTES = 64L << 20;
+
+    /**
+     * Same as {@link #minRoads(int[], int[][])} on a prebuilt graph. Callers that query the same road
+     * network repeatedly can share the graph and a caching distance oracle between calls.
+     *
+     * @param packages  Array indicating locations with packages (1 for package present, 0 otherwise).
+     * @param graph     Road graph.
+     * @param distances Distance oracle over the same graph.
+     * @return Minimum number of roads required to collect all packages and return to start, or -1 if not possible.
+     * @throws IllegalStateException If there are too many packages to search within the memory budget.
+     */
+    static int minRoads(int[] packages, RoadGraph graph, DistanceOracle distances) {
+        int n = packages.length;
+        if (n == 0) return 0; // No nodes, no roads needed
+
         // Identify all nodes containing packages
-        List<Integer> packageNodes = new ArrayList<>();
+        int m = 0;
+        int[] packageNodes = new int[n];
         for (int i = 0; i < n; i++) {
             if (packages[i] == 1) {
-                packageNodes.add(i);
+                packageNodes[m++] = i;
             }
         }
-        int m = packageNodes.size();
         if (m == 0) return 0; // No packages, no roads needed
+        packageNodes = Arrays.copyOf(packageNodes, m);
 
-        // Build adjacency list representation of the graph
-        List<List<Integer>> adj = buildAdjacencyList(n, roads);
+        // Trees have a linear-time answer, so skip the state search entirely
+        if (isTree(graph, distances)) {
+            return minRoadsOnTree(packages, graph);
+        }
 
-        // Precompute which packages can be covered within two steps from each node
-        int[] coverage = precomputeCoverage(n, adj, packageNodes);
+        // Packages covered within two steps of each node, as bitsets
+        long[] coverage = graph.coverage(packageNodes);
 
-        // Precompute shortest paths between all nodes
-        int[][] shortestPaths = precomputeShortestPaths(n, adj);
+        // Small package sets fit the exhaustive visited table; larger ones use the bounded best-first search
+        if (fitsVisitedTable(n, m)) {
+            return searchWithVisitedTable(graph, distances, coverage, m);
+        }
+        return new BestFirstSearch(graph, distances, coverage, m, DEFAULT_MAX_STATES).run();
+    }
+
+    // Largest n * 2^m visited table the exhaustive BFS is allowed to allocate
+    private static final long MAX_VISITED_TABLE = 1L << 26;
+
+    // State budget for the best-first search (each state costs a few ints plus its bitset)
+    static final int DEFAULT_MAX_STATES = 1 << 21;
+
+    private static boolean fitsVisitedTable(int n, int m) {
+        return m <= 20 && ((long) n << m) <= MAX_VISITED_TABLE;
+    }
+
+    /**
+     * Breadth-first search over (node, collected packages) states from every start node.
+     *
+     * @param graph     Road graph.
+     * @param distances Distance oracle used for the walk back to each start.
+     * @param coverage  Packages covered within two steps of each node (one word per node, m <= 20).
+     * @param m         Number of packages.
+     * @return Minimum number of roads required to collect all packages and return to start, or -1 if not possible.
+     */
+    private static int searchWithVisitedTable(RoadGraph graph, DistanceOracle distances, long[] coverage, int m) {
+        int n = graph.size();
+        int fullMask = (1 << m) - 1;
 
         int minTotal = Integer.MAX_VALUE;
 
         // Try starting from each node
         for (int start = 0; start < n; start++) {
-            int initialMask = coverage[start];
+            int initialMask = (int) coverage[start];
 
             // If the starting node already covers all packages, return 0 steps
-            if (initialMask == (1 << m) - 1) {
+            if (initialMask == fullMask) {
                 return 0;
             }
 
@@ -63,13 +136,17 @@ public class MinimumRoads {
             visited[start][initialMask] = true;
 
             int currentMin = Integer.MAX_VALUE;
+            int[] distToStart = null; // Fetched only once some state has collected everything
 
             while (!queue.isEmpty()) {
                 State curr = queue.poll();
 
                 // If all packages are collected, check return path to start node
-                if (curr.mask == (1 << m) - 1) {
-                    int returnSteps = shortestPaths[curr.node][start];
+                if (curr.mask == fullMask) {
+                    if (distToStart == null) {
+                        distToStart = distances.distancesFrom(start);
+                    }
+                    int returnSteps = distToStart[curr.node];
                     if (returnSteps != -1) {
                         currentMin = Math.min(currentMin, curr.steps + returnSteps);
                     }
@@ -77,8 +154,9 @@ public class MinimumRoads {
                 }
 
                 // Explore all neighboring nodes
-                for (int neighbor : adj.get(curr.node)) {
-                    int newMask = curr.mask | coverage[neighbor];
+                for (int e = graph.begin(curr.node); e < graph.end(curr.node); e++) {
+                    int neighbor = graph.target(e);
+                    int newMask = curr.mask | (int) coverage[neighbor];
                     int newSteps = curr.steps + 1;
                     if (!visited[neighbor][newMask]) {
                         visited[neighbor][newMask] = true;
@@ -96,109 +174,332 @@ public class MinimumRoads {
     }
 
     /**
-     * Builds an adjacency list representation of the graph.
-     *
-     * @param n     Number of nodes.
-     * @param roads Array of roads connecting nodes.
-     * @return Adjacency list representing the graph.
+     * Memory-bounded best-first (A*) search over (node, package bitset) states, used when there are
+     * too many packages for a 2^m visited table. Bitsets are words(m) longs, so a single long holds up
+     * to 64 packages and larger sets use several words. States are ordered by steps taken plus the
+     * distance back to the start; that never overestimates the rest of the walk, so the first complete
+     * state popped is optimal for its start. If a start exhausts the state budget the search fails
+     * with an IllegalStateException rather than return a walk that may not be optimal.
      */
-    private static List<List<Integer>> buildAdjacencyList(int n, int[][] roads) {
-        List<List<Integer>> adj = new ArrayList<>();
-        for (int i = 0; i < n; i++) {
-            adj.add(new ArrayList<>());
+    static class BestFirstSearch {
+        private final RoadGraph graph;
+        private final long[] coverage;
+        private final int words;
+        private final long[] fullMask;
+        private final int maxStates;
+
+        // State storage: node, steps and a words-long bitset per state id
+        private int[] stateNode = new int[1024];
+        private int[] stateSteps = new int[1024];
+        private long[] stateMasks;
+        private int stateCount;
+
+        // Open-addressing set of state ids keyed by (node, bitset), -1 for empty slots
+        private int[] slots = new int[2048];
+
+        // Binary min-heap of (f << 32 | state id); entries whose f is stale are skipped when popped
+        private long[] heap = new long[1024];
+        private int heapSize;
+
+        // Distances back to the current start, fetched from the oracle once per start
+        private final DistanceOracle distances;
+        private int[] distToStart;
+        private final long[] scratch;
+
+        BestFirstSearch(RoadGraph graph, DistanceOracle distances, long[] coverage, int m, int maxStates) {
+            this.graph = graph;
+            this.distances = distances;
+            this.coverage = coverage;
+            this.words = RoadGraph.words(m);
+            this.maxStates = maxStates;
+            this.fullMask = new long[words];
+            for (int i = 0; i < m; i++) {
+                fullMask[i >>> 6] |= 1L << i;
+            }
+            this.stateMasks = new long[1024 * words];
+            this.scratch = new long[words];
         }
-        for (int[] road : roads) {
-            int a = road[0];
-            int b = road[1];
-            adj.get(a).add(b);
-            adj.get(b).add(a);
+
+        /**
+         * Runs the search from every start node.
+         *
+         * @return Minimum number of roads required to collect all packages and return to start, or -1 if not possible.
+         * @throws IllegalStateException If a start needs more than maxStates states.
+         */
+        int run() {
+            int n = graph.size();
+
+            // Any closed walk must pass a node covering the least-covered package, and can be
+            // rotated to start there, so only those nodes need to be tried as starts
+            int[] coveredBy = new int[fullMask.length * 64];
+            for (int u = 0; u < n; u++) {
+                for (int w = 0; w < words; w++) {
+                    long bits = coverage[u * words + w];
+                    while (bits != 0) {
+                        coveredBy[(w << 6) + Long.numberOfTrailingZeros(bits)]++;
+                        bits &= bits - 1;
+                    }
+                }
+            }
+            int rarest = 0;
+            for (int i = 1; i < coveredBy.length; i++) {
+                if ((fullMask[i >>> 6] & (1L << i)) != 0 && coveredBy[i] < coveredBy[rarest]) {
+                    rarest = i;
+                }
+            }
+
+            int best = Integer.MAX_VALUE;
+            for (int start = 0; start < n; start++) {
+                if ((coverage[start * words + (rarest >>> 6)] & (1L << rarest)) == 0) continue;
+                if (isFull(coverage, start * words)) {
+                    return 0; // The starting node already covers all packages
+                }
+                distToStart = distances.distancesFrom(start);
+                best = Math.min(best, searchFrom(start, best));
+            }
+            return best == Integer.MAX_VALUE ? -1 : best;
         }
-        return adj;
-    }
 
-    /**
-     * Precomputes the package coverage for each node within two steps.
-     *
-     * @param n            Number of nodes.
-     * @param adj          Adjacency list representation of the graph.
-     * @param packageNodes List of nodes containing packages.
-     * @return An array where each index represents the bitmask of packages a node can reach within two steps.
-     */
-    private static int[] precomputeCoverage(int n, List<List<Integer>> adj, List<Integer> packageNodes) {
-        int m = packageNodes.size();
-        int[] coverage = new int[n];
+        // Best closed walk from start that is shorter than bound, or bound if there is none
+        private int searchFrom(int start, int bound) {
+            stateCount = 0;
+            heapSize = 0;
+            Arrays.fill(slots, -1);
 
-        for (int u = 0; u < n; u++) {
-            Set<Integer> covered = getNodesWithinTwoSteps(u, adj);
-            int mask = 0;
-            for (int i = 0; i < m; i++) {
-                if (covered.contains(packageNodes.get(i))) {
-                    mask |= (1 << i);
+            System.arraycopy(coverage, start * words, scratch, 0, words);
+            int initial = insertOrImprove(start, 0);
+            push(distToStart[start], initial);
+
+            while (heapSize > 0) {
+                long top = pop();
+                int id = (int) top;
+                int f = (int) (top >>> 32);
+                int node = stateNode[id];
+                int steps = stateSteps[id];
+                if (f != steps + distToStart[node]) continue; // Superseded by a shorter route to this state
+                if (f >= bound) break; // Nothing left can beat the best walk already found
+
+                if (isFull(stateMasks, id * words)) {
+                    return f; // Collected everything; f includes the walk back to start
                 }
+
+                for (int e = graph.begin(node); e < graph.end(node); e++) {
+                    int neighbor = graph.target(e);
+                    int newSteps = steps + 1;
+                    int newF = newSteps + distToStart[neighbor];
+                    if (newF >= bound) continue;
+
+                    int maskBase = id * words;
+                    int coverageBase = neighbor * words;
+                    for (int w = 0; w < words; w++) {
+                        scratch[w] = stateMasks[maskBase + w] | coverage[coverageBase + w];
+                    }
+                    int next = insertOrImprove(neighbor, newSteps);
+                    if (next >= 0) {
+                        push(newF, next);
+                    }
+                    if (stateCount >= maxStates) {
+                        throw new IllegalStateException("Search from node " + start + " needs more than " + maxStates
+                                + " states" + (bound == Integer.MAX_VALUE ? "" : "; best walk found so far has " + bound + " roads"));
+                    }
+                }
+            }
+            return bound;
+        }
+
+        // Adds state (node, scratch) or lowers its steps; returns its id, or -1 if it was already as good
+        private int insertOrImprove(int node, int steps) {
+            int mask = slots.length - 1;
+            int slot = hash(node, scratch) & mask;
+            while (slots[slot] != -1) {
+                int id = slots[slot];
+                if (stateNode[id] == node && sameMask(id)) {
+                    if (steps >= stateSteps[id]) return -1;
+                    stateSteps[id] = steps;
+                    return id;
+                }
+                slot = (slot + 1) & mask;
+            }
+
+            int id = stateCount++;
+            if (id == stateNode.length) {
+                stateNode = Arrays.copyOf(stateNode, id * 2);
+                stateSteps = Arrays.copyOf(stateSteps, id * 2);
+                stateMasks = Arrays.copyOf(stateMasks, id * 2 * words);
+            }
+            stateNode[id] = node;
+            stateSteps[id] = steps;
+            System.arraycopy(scratch, 0, stateMasks, id * words, words);
+            slots[slot] = id;
+            if (stateCount * 2 > slots.length) {
+                rehash();
+            }
+            return id;
+        }
+
+        private void rehash() {
+            slots = new int[slots.length * 2];
+            Arrays.fill(slots, -1);
+            int mask = slots.length - 1;
+            for (int id = 0; id < stateCount; id++) {
+                int slot = hash(stateNode[id], stateMasks, id * words) & mask;
+                while (slots[slot] != -1) {
+                    slot = (slot + 1) & mask;
+                }
+                slots[slot] = id;
+            }
+        }
+
+        private int hash(int node, long[] bits) {
+            return hash(node, bits, 0);
+        }
+
+        private int hash(int node, long[] bits, int offset) {
+            long h = node * 0x9E3779B97F4A7C15L;
+            for (int w = 0; w < words; w++) {
+                h = (h ^ bits[offset + w]) * 0xBF58476D1CE4E5B9L;
             }
-            coverage[u] = mask;
+            return (int) (h ^ (h >>> 31));
+        }
+
+        private boolean sameMask(int id) {
+            int base = id * words;
+            for (int w = 0; w < words; w++) {
+                if (stateMasks[base + w] != scratch[w]) return false;
+            }
+            return true;
+        }
+
+        private boolean isFull(long[] bits, int offset) {
+            for (int w = 0; w < words; w++) {
+                if (bits[offset + w] != fullMask[w]) return false;
+            }
+            return true;
+        }
+
+        private void push(int f, int id) {
+            if (heapSize == heap.length) {
+                heap = Arrays.copyOf(heap, heapSize * 2);
+            }
+            long key = ((long) f << 32) | id;
+            int i = heapSize++;
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (heap[parent] <= key) break;
+                heap[i] = heap[parent];
+                i = parent;
+            }
+            heap[i] = key;
+        }
+
+        private long pop() {
+            long top = heap[0];
+            long last = heap[--heapSize];
+            int i = 0;
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= heapSize) break;
+                if (child + 1 < heapSize && heap[child + 1] < heap[child]) child++;
+                if (heap[child] >= last) break;
+                heap[i] = heap[child];
+                i = child;
+            }
+            heap[i] = last;
+            return top;
         }
-        return coverage;
     }
 
     /**
-     * Gets all nodes that can be reached within two steps from a given node.
+     * Checks whether the road network is a tree (exactly n - 1 roads and connected).
      *
-     * @param u   Starting node.
-     * @param adj Adjacency list representation of the graph.
-     * @return A set of nodes reachable within two steps.
+     * @param graph     Road graph.
+     * @param distances Distance oracle over the same graph.
+     * @return True if the roads form a single tree spanning all nodes.
      */
-    private static Set<Integer> getNodesWithinTwoSteps(int u, List<List<Integer>> adj) {
-        Set<Integer> visited = new HashSet<>();
-        Queue<Integer> queue = new LinkedList<>();
-        queue.add(u);
-        visited.add(u);
-        int steps = 0;
-
-        while (steps < 2 && !queue.isEmpty()) {
-            int size = queue.size();
-            for (int i = 0; i < size; i++) {
-                int node = queue.poll();
-                for (int neighbor : adj.get(node)) {
-                    if (!visited.contains(neighbor)) {
-                        visited.add(neighbor);
-                        queue.add(neighbor);
-                    }
-                }
-            }
-            steps++;
-        }
+    static boolean isTree(RoadGraph graph, DistanceOracle distances) {
+        int n = graph.size();
+        if (graph.roadCount() != n - 1) return false;
 
-        return visited;
+        // With n - 1 roads, the graph is a tree exactly when everything is reachable from node 0
+        int[] dist = distances.distancesFrom(0);
+        for (int i = 0; i < n; i++) {
+            if (dist[i] == -1) return false;
+        }
+        return true;
     }
 
     /**
-     * Computes the shortest paths between all pairs of nodes using BFS.
+     * Solves the problem in O(n) when the roads form a tree.
+     * Leaves without packages are never worth visiting, so they are trimmed repeatedly. Every package
+     * can be collected from two steps away, so two more layers of leaves are trimmed. Each remaining
+     * road has to be walked once in each direction.
      *
-     * @param n   Number of nodes.
-     * @param adj Adjacency list representation of the graph.
-     * @return A 2D array where dist[i][j] gives the shortest distance between nodes i and j.
+     * @param packages Array indicating locations with packages (1 for package present, 0 otherwise).
+     * @param graph    Road graph forming a tree over all nodes.
+     * @return Minimum number of roads required to collect all packages and return to start.
      */
-    private static int[][] precomputeShortestPaths(int n, List<List<Integer>> adj) {
-        int[][] dist = new int[n][n];
-        
+    static int minRoadsOnTree(int[] packages, RoadGraph graph) {
+        int n = packages.length;
+
+        int[] degree = new int[n];
         for (int i = 0; i < n; i++) {
-            Arrays.fill(dist[i], -1);
-            Queue<Integer> q = new LinkedList<>();
-            q.add(i);
-            dist[i][i] = 0;
-            
-            while (!q.isEmpty()) {
-                int u = q.poll();
-                for (int v : adj.get(u)) {
-                    if (dist[i][v] == -1) {
-                        dist[i][v] = dist[i][u] + 1;
-                        q.add(v);
+            degree[i] = graph.end(i) - graph.begin(i);
+        }
+
+        boolean[] removed = new boolean[n];
+        int remainingEdges = graph.roadCount();
+
+        // Repeatedly trim leaves that hold no package
+        int[] queue = new int[n];
+        int head = 0, tail = 0;
+        for (int i = 0; i < n; i++) {
+            if (degree[i] == 1 && packages[i] == 0) {
+                queue[tail++] = i;
+            }
+        }
+        while (head < tail) {
+            int leaf = queue[head++];
+            removed[leaf] = true;
+            for (int e = graph.begin(leaf); e < graph.end(leaf); e++) {
+                int neighbor = graph.target(e);
+                if (removed[neighbor]) continue;
+                remainingEdges--;
+                if (--degree[neighbor] == 1 && packages[neighbor] == 0) {
+                    queue[tail++] = neighbor;
+                }
+            }
+        }
+
+        // Trim two more layers of leaves, since those packages are reachable from two steps away
+        int layerSize = 0;
+        for (int i = 0; i < n; i++) {
+            if (!removed[i] && degree[i] == 1) {
+                queue[layerSize++] = i;
+            }
+        }
+        int[] nextLayer = new int[n];
+        for (int round = 0; round < 2; round++) {
+            int nextSize = 0;
+            for (int i = 0; i < layerSize; i++) {
+                int leaf = queue[i];
+                removed[leaf] = true;
+                for (int e = graph.begin(leaf); e < graph.end(leaf); e++) {
+                    int neighbor = graph.target(e);
+                    if (removed[neighbor]) continue;
+                    remainingEdges--;
+                    if (--degree[neighbor] == 1) {
+                        nextLayer[nextSize++] = neighbor;
                     }
                 }
             }
+            int[] swap = queue;
+            queue = nextLayer;
+            nextLayer = swap;
+            layerSize = nextSize;
         }
-        return dist;
+
+        // Every road left in the tree is walked there and back
+        return Math.max(remainingEdges, 0) * 2;
     }
 
     public static void main(String[] args) {
@@ -0,0 +1,116 @@
+import java.util.*;
+
+/**
+ * Road network stored in compressed sparse row form.
+ * The neighbors of node u are target(e) for every e in [begin(u), end(u)).
+ */
+class RoadGraph {
+    private final int n;
+    private final int[] offsets; // offsets[u] .. offsets[u + 1] index into targets
+    private final int[] targets; // Neighbor of each directed half of a road
+
+    RoadGraph(int n, int[] offsets, int[] targets) {
+        this.n = n;
+        this.offsets = offsets;
+        this.targets = targets;
+    }
+
+    /**
+     * Builds the compressed adjacency from a list of bidirectional roads.
+     *
+     * @param n     Number of nodes.
+     * @param roads Array of roads connecting nodes.
+     * @return The road graph.
+     */
+    static RoadGraph fromRoads(int n, int[][] roads) {
+        int[] offsets = new int[n + 1];
+        for (int[] road : roads) {
+            offsets[road[0] + 1]++;
+            offsets[road[1] + 1]++;
+        }
+        for (int i = 0; i < n; i++) {
+            offsets[i + 1] += offsets[i];
+        }
+        int[] fill = Arrays.copyOf(offsets, n);
+        int[] targets = new int[2 * roads.length];
+        for (int[] road : roads) {
+            targets[fill[road[0]]++] = road[1];
+            targets[fill[road[1]]++] = road[0];
+        }
+        return new RoadGraph(n, offsets, targets);
+    }
+
+    int size() {
+        return n;
+    }
+
+    int roadCount() {
+        return offsets[n] / 2;
+    }
+
+    int begin(int u) {
+        return offsets[u];
+    }
+
+    int end(int u) {
+        return offsets[u + 1];
+    }
+
+    int target(int e) {
+        return targets[e];
+    }
+
+    /**
+     * Copies precomputed BFS distances from source into row, if this graph has them stored.
+     *
+     * @param source Source node.
+     * @param row    Destination row of length size().
+     * @return True if the row was filled.
+     */
+    boolean storedDistances(int source, int[] row) {
+        return false;
+    }
+
+    /**
+     * Number of 64-bit words needed for a bitset over m packages.
+     *
+     * @param m Number of packages.
+     * @return Words per bitset (at least 1).
+     */
+    static int words(int m) {
+        return Math.max(1, (m + 63) >>> 6);
+    }
+
+    /**
+     * Computes, for every node, the bitset of packages within two steps.
+     * Coverage within two steps is the node's own packages OR'ed with its neighbors' one-step
+     * coverage, so two passes over the edges with word-parallel ORs are enough.
+     *
+     * @param packageNodes Nodes holding packages; package i is bit i.
+     * @return Flat array holding words(m) longs per node, node u starting at u * words(m).
+     */
+    long[] coverage(int[] packageNodes) {
+        int words = words(packageNodes.length);
+        long[] own = new long[n * words];
+        for (int i = 0; i < packageNodes.length; i++) {
+            own[packageNodes[i] * words + (i >>> 6)] |= 1L << i;
+        }
+        long[] oneStep = orNeighbors(own, words);
+        return orNeighbors(oneStep, words);
+    }
+
+    // Returns bits[u] | bits[v] for every neighbor v of u
+    private long[] orNeighbors(long[] bits, int words) {
+        long[] result = bits.clone();
+        for (int u = 0; u < n; u++) {
+            int base = u * words;
+            for (int e = begin(u); e < end(u); e++) {
+                int from = target(e) * words;
+                for (int w = 0; w < words; w++) {
+                    result[base + w] |= bits[from + w];
+                }
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,221 @@
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+
+/**
+ * Package-independent precomputation for a road network, persisted in a memory-mapped file.
+ * The file is keyed by a fingerprint of the roads, so later runs (and other processes) that see the
+ * same network map it read-only instead of rebuilding anything. It holds the CSR adjacency and,
+ * optionally, BFS distance rows for the first nodes. Two-hop neighbourhoods are not stored: their total
+ * size is quadratic around hubs, so coverage is computed per query from the package nodes instead.
+ *
+ * File layout (big-endian ints): header, offsets[n + 1], targets[2 * roads], then rowCount distance
+ * rows of n ints each.
+ */
+class RoadNetworkCache {
+    private static final int MAGIC = 0x524F4144; // "ROAD"
+    private static final int VERSION = 2;
+    private static final int HEADER_BYTES = 32;
+
+    private final MappedRoadGraph graph;
+
+    private RoadNetworkCache(MappedRoadGraph graph) {
+        this.graph = graph;
+    }
+
+    /**
+     * Opens the cache for the given roads, building and writing it first if no valid file exists.
+     *
+     * @param dir           Directory holding cache files.
+     * @param n             Number of nodes.
+     * @param roads         Array of roads connecting nodes.
+     * @param distanceBytes Budget for stored BFS rows; 0 stores none.
+     * @return The mapped cache.
+     * @throws IOException If the file cannot be read or written.
+     */
+    static RoadNetworkCache open(Path dir, int n, int[][] roads, long distanceBytes) throws IOException {
+        long fingerprint = fingerprint(n, roads);
+        Path file = dir.resolve(String.format("roads-%016x.bin", fingerprint));
+
+        MappedRoadGraph graph = Files.exists(file) ? tryMap(file, n, roads.length, fingerprint) : null;
+        if (graph == null) {
+            write(file, n, roads, fingerprint, distanceBytes);
+            graph = tryMap(file, n, roads.length, fingerprint);
+            if (graph == null) {
+                throw new IOException("Cache file " + file + " is not readable after writing it");
+            }
+        }
+        return new RoadNetworkCache(graph);
+    }
+
+    RoadGraph graph() {
+        return graph;
+    }
+
+    /**
+     * Hashes the node count and every road, in order, into a 64-bit fingerprint.
+     *
+     * @param n     Number of nodes.
+     * @param roads Array of roads connecting nodes.
+     * @return The fingerprint.
+     */
+    static long fingerprint(int n, int[][] roads) {
+        long h = 0xCBF29CE484222325L ^ n;
+        h = mix(h ^ roads.length);
+        for (int[] road : roads) {
+            h = mix(h ^ (((long) road[0] << 32) | (road[1] & 0xFFFFFFFFL)));
+        }
+        return h;
+    }
+
+    private static long mix(long h) {
+        h *= 0x9E3779B97F4A7C15L;
+        return h ^ (h >>> 29);
+    }
+
+    // Builds every section and writes it to a temporary file that is then moved into place
+    private static void write(Path file, int n, int[][] roads, long fingerprint, long distanceBytes) throws IOException {
+        RoadGraph graph = RoadGraph.fromRoads(n, roads);
+
+        // Distance rows for the first nodes, capped so the section stays mappable in one piece
+        long rowBytes = 4L * Math.max(1, n);
+        int rowCount = (int) Math.min(n, Math.min(distanceBytes, Integer.MAX_VALUE) / rowBytes);
+        DistanceOracle oracle = new DistanceOracle(graph);
+
+        Path dir = file.toAbsolutePath().getParent();
+        Files.createDirectories(dir);
+        Path tmp = Files.createTempFile(dir, "roads-", ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(n);
+            out.writeInt(roads.length);
+            out.writeLong(fingerprint);
+            out.writeInt(0); // Reserved
+            out.writeInt(rowCount);
+            for (int u = 0; u <= n; u++) {
+                out.writeInt(u < n ? graph.begin(u) : 2 * roads.length);
+            }
+            for (int e = 0; e < 2 * roads.length; e++) {
+                out.writeInt(graph.target(e));
+            }
+            for (int source = 0; source < rowCount; source++) {
+                for (int d : oracle.distancesFrom(source)) {
+                    out.writeInt(d);
+                }
+            }
+        }
+        try {
+            Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    // Maps every section of an existing file, or returns null if it does not match the roads
+    private static MappedRoadGraph tryMap(Path file, int n, int roadCount, long fingerprint) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_BYTES) return null;
+            ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES);
+            if (header.getInt() != MAGIC || header.getInt() != VERSION || header.getInt() != n
+                    || header.getInt() != roadCount || header.getLong() != fingerprint) {
+                return null;
+            }
+            header.getInt(); // Reserved
+            int rowCount = header.getInt();
+
+            long position = HEADER_BYTES;
+            long[] sizes = {n + 1L, 2L * roadCount, (long) rowCount * n};
+            long total = position;
+            for (long s : sizes) total += 4 * s;
+            if (channel.size() != total) return null;
+
+            IntBuffer[] sections = new IntBuffer[sizes.length];
+            for (int i = 0; i < sizes.length; i++) {
+                sections[i] = channel.map(FileChannel.MapMode.READ_ONLY, position, 4 * sizes[i]).asIntBuffer();
+                position += 4 * sizes[i];
+            }
+            return new MappedRoadGraph(n, sections[0], sections[1], sections[2], rowCount);
+        }
+    }
+
+    /**
+     * Road graph whose arrays live in the mapped cache file. Stored distance rows replace the BFS for
+     * their sources.
+     */
+    static class MappedRoadGraph extends RoadGraph {
+        private final IntBuffer offsets;
+        private final IntBuffer targets;
+        private final IntBuffer rows;
+        private final int rowCount;
+
+        MappedRoadGraph(int n, IntBuffer offsets, IntBuffer targets, IntBuffer rows, int rowCount) {
+            super(n, null, null);
+            this.offsets = offsets;
+            this.targets = targets;
+            this.rows = rows;
+            this.rowCount = rowCount;
+        }
+
+        @Override
+        int roadCount() {
+            return offsets.get(size()) / 2;
+        }
+
+        @Override
+        int begin(int u) {
+            return offsets.get(u);
+        }
+
+        @Override
+        int end(int u) {
+            return offsets.get(u + 1);
+        }
+
+        @Override
+        int target(int e) {
+            return targets.get(e);
+        }
+
+        // A depth-2 BFS from each package node ("within two steps" is symmetric), so only the
+        // packages' neighbourhoods are read from the mapped file
+        @Override
+        long[] coverage(int[] packageNodes) {
+            int words = words(packageNodes.length);
+            long[] coverage = new long[size() * words];
+            int[] stamp = new int[size()];
+            for (int i = 0; i < packageNodes.length; i++) {
+                int p = packageNodes[i];
+                int mark = i + 1;
+                long bit = 1L << i;
+                int word = i >>> 6;
+                stamp[p] = mark;
+                coverage[p * words + word] |= bit;
+                for (int e = begin(p); e < end(p); e++) {
+                    int v = target(e);
+                    if (stamp[v] != mark) {
+                        stamp[v] = mark;
+                        coverage[v * words + word] |= bit;
+                    }
+                    for (int f = begin(v); f < end(v); f++) {
+                        int w = target(f);
+                        if (stamp[w] != mark) {
+                            stamp[w] = mark;
+                            coverage[w * words + word] |= bit;
+                        }
+                    }
+                }
+            }
+            return coverage;
+        }
+
+        @Override
+        boolean storedDistances(int source, int[] row) {
+            if (source >= rowCount) return false;
+            rows.get(source * size(), row, 0, size());
+            return true;
+        }
+    }
+}
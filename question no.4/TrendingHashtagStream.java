@@ -0,0 +1,194 @@
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * Streaming approximate top-k hashtags over a sliding time window, in fixed memory.
+ * Each time bucket keeps a SpaceSaving summary of at most capacity counters, where
+ * capacity = ceil(1 / epsilon). A reported count overestimates the true count in the window by at
+ * most epsilon times the number of hashtags seen in each bucket, summed over the window's buckets,
+ * and never underestimates it.
+ * Buckets are a ring: when time moves past a bucket it is swapped for a fresh summary in O(1).
+ */
+class TrendingHashtagStream {
+    private final long bucketMillis;
+    private final int capacity;
+    private final Summary[] ring;   // Bucket i covers [bucketIndex * bucketMillis, ...), stored at bucketIndex % ring.length
+    private final long[] ringIndex; // Bucket index each ring slot currently holds
+    private final HashtagKey probe = new HashtagKey();
+    private long latestBucket = Long.MIN_VALUE;
+
+    /**
+     * Creates a stream engine.
+     *
+     * @param windowMillis Length of the sliding window, e.g. one hour or one day.
+     * @param buckets      Number of buckets the window is split into; expiry happens per bucket.
+     * @param epsilon      Relative error bound per bucket; each bucket keeps ceil(1 / epsilon) counters.
+     */
+    TrendingHashtagStream(long windowMillis, int buckets, double epsilon) {
+        if (windowMillis <= 0 || buckets <= 0 || epsilon <= 0 || epsilon >= 1) {
+            throw new IllegalArgumentException("Invalid window, bucket count or epsilon");
+        }
+        this.bucketMillis = Math.max(1, windowMillis / buckets);
+        this.capacity = (int) Math.ceil(1 / epsilon);
+        this.ring = new Summary[buckets];
+        this.ringIndex = new long[buckets];
+        Arrays.fill(ringIndex, Long.MIN_VALUE);
+    }
+
+    /**
+     * Ingests a tweet, using midnight UTC of its tweetDate as the timestamp.
+     *
+     * @param tweet Tweet to ingest.
+     */
+    void ingest(TweetsTable.Tweet tweet) {
+        long day = LocalDate.parse(tweet.getTweetDate()).toEpochDay();
+        ingest(day * 86_400_000L, tweet.getTweet());
+    }
+
+    /**
+     * Ingests the hashtags of one piece of text. Timestamps older than the window are ignored.
+     *
+     * @param timestampMillis Event time in epoch milliseconds.
+     * @param text            Text to scan for hashtags.
+     */
+    void ingest(long timestampMillis, CharSequence text) {
+        long bucket = Math.floorDiv(timestampMillis, bucketMillis);
+        if (bucket > latestBucket) {
+            latestBucket = bucket;
+        } else if (bucket <= latestBucket - ring.length) {
+            return; // Already expired
+        }
+
+        int slot = (int) Math.floorMod(bucket, (long) ring.length);
+        if (ringIndex[slot] != bucket) {
+            ring[slot] = new Summary(capacity); // Expire whatever this slot held before
+            ringIndex[slot] = bucket;
+        }
+        Summary summary = ring[slot];
+
+        int start = HashtagScanner.next(text, 0);
+        while (start >= 0) {
+            int end = HashtagScanner.end(text, start);
+            summary.offer(probe.set(text, start, end));
+            start = HashtagScanner.next(text, end);
+        }
+    }
+
+    /**
+     * Returns the approximate top k hashtags in the window ending at the latest ingested bucket,
+     * sorted by estimated count (descending), then by hashtag (descending).
+     *
+     * @param k Maximum number of hashtags to return.
+     * @return Hashtags and their estimated counts.
+     */
+    List<Map.Entry<String, Long>> top(int k) {
+        // SpaceSaving merge: a bucket that does not monitor a key counts it at that bucket's minimum,
+        // the most it can have seen of the key. Adding every bucket's minimum once and each monitored
+        // count's excess over its bucket's minimum gives that sum for every monitored key.
+        Map<String, Long> merged = new HashMap<>();
+        long minimums = 0;
+        for (int slot = 0; slot < ring.length; slot++) {
+            if (ring[slot] != null && ringIndex[slot] > latestBucket - ring.length) {
+                minimums += ring[slot].minimum();
+                ring[slot].addExcessTo(merged);
+            }
+        }
+        long base = minimums;
+        merged.replaceAll((key, excess) -> excess + base);
+
+        Comparator<Map.Entry<String, Long>> ranking = (a, b) -> {
+            int countCompare = b.getValue().compareTo(a.getValue());
+            return countCompare != 0 ? countCompare : b.getKey().compareTo(a.getKey());
+        };
+        PriorityQueue<Map.Entry<String, Long>> heap = new PriorityQueue<>(ranking.reversed());
+        for (Map.Entry<String, Long> entry : merged.entrySet()) {
+            heap.add(entry);
+            if (heap.size() > k) heap.poll();
+        }
+        List<Map.Entry<String, Long>> result = new ArrayList<>(heap);
+        result.sort(ranking);
+        return result;
+    }
+
+    /**
+     * SpaceSaving summary: at most capacity monitored keys in a min-heap by count. An unmonitored key
+     * replaces the minimum and inherits its count, which is the source of the overestimate.
+     */
+    static class Summary {
+        private final String[] keys;
+        private final long[] counts;
+        private final Map<String, Integer> position; // Key -> heap index
+        private int size;
+
+        Summary(int capacity) {
+            this.keys = new String[capacity];
+            this.counts = new long[capacity];
+            this.position = new HashMap<>(capacity * 2);
+        }
+
+        // Counts one occurrence; the key's String is only allocated when it starts being monitored
+        void offer(HashtagKey probe) {
+            Integer index = position.get(probe);
+            if (index != null) {
+                counts[index]++;
+                siftDown(index);
+            } else if (size < keys.length) {
+                String key = probe.toString();
+                keys[size] = key;
+                counts[size] = 1;
+                position.put(key, size);
+                siftUp(size++);
+            } else {
+                String key = probe.toString();
+                position.remove(keys[0]);
+                keys[0] = key;
+                counts[0]++;
+                position.put(key, 0);
+                siftDown(0);
+            }
+        }
+
+        // Upper bound on the count of any key this summary does not monitor
+        long minimum() {
+            return size < keys.length ? 0 : counts[0];
+        }
+
+        void addExcessTo(Map<String, Long> merged) {
+            long minimum = minimum();
+            for (int i = 0; i < size; i++) {
+                merged.merge(keys[i], counts[i] - minimum, Long::sum);
+            }
+        }
+
+        private void siftUp(int i) {
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (counts[parent] <= counts[i]) break;
+                swap(i, parent);
+                i = parent;
+            }
+        }
+
+        private void siftDown(int i) {
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= size) break;
+                if (child + 1 < size && counts[child + 1] < counts[child]) child++;
+                if (counts[i] <= counts[child]) break;
+                swap(i, child);
+                i = child;
+            }
+        }
+
+        private void swap(int a, int b) {
+            String key = keys[a];
+            keys[a] = keys[b];
+            keys[b] = key;
+            long count = counts[a];
+            counts[a] = counts[b];
+            counts[b] = count;
+            position.put(keys[a], a);
+            position.put(keys[b], b);
+        }
+    }
+}
@@ -0,0 +1,226 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Counts hashtags in large tweet dumps without building Tweet objects.
+ * The file is memory-mapped and split into line-aligned chunks that are parsed in parallel. Hashtags
+ * are scanned straight from the mapped bytes and counted per chunk, then the chunk tables are merged.
+ *
+ * Two formats are accepted, one record per line:
+ * CSV    userId,tweetId,tweetDate,tweet (the tweet is the rest of the line and may be quoted)
+ * NDJSON {"userId": 135, "tweetId": 13, "tweetDate": "2024-02-03", "tweet": "..."}
+ * A CSV header line is skipped naturally because its date field does not match the prefix.
+ * Hashtags whose characters are written as JSON unicode escapes are not recognized.
+ */
+final class TweetDumpLoader {
+    private static final int MAX_CHUNK_BYTES = 1 << 30;
+    private static final int MIN_CHUNK_BYTES = 1 << 20;
+    private static final byte[] DATE_KEY = "\"tweetDate\"".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] TWEET_KEY = "\"tweet\"".getBytes(StandardCharsets.US_ASCII);
+
+    private TweetDumpLoader() {
+    }
+
+    /**
+     * Same as {@link #topHashtags(Path, String, int, int)} using one thread per available processor.
+     */
+    static List<Map.Entry<String, Integer>> topHashtags(Path file, String datePrefix, int k) throws IOException {
+        return topHashtags(file, datePrefix, k, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Returns the top k hashtags of the tweets in a dump whose date starts with datePrefix, ranked
+     * like TweetsTable.findTopTrendingHashtags (count descending, then hashtag descending).
+     *
+     * @param file       CSV or NDJSON dump.
+     * @param datePrefix Date prefix to keep, e.g. "2024-02-"; empty keeps every tweet.
+     * @param k          Maximum number of hashtags to return.
+     * @param threads    Number of parser threads.
+     * @return Hashtags and their counts.
+     * @throws IOException If the file cannot be read.
+     */
+    static List<Map.Entry<String, Integer>> topHashtags(Path file, String datePrefix, int k, int threads) throws IOException {
+        byte[] prefix = datePrefix.getBytes(StandardCharsets.US_ASCII);
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, threads));
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            boolean json = isJson(channel);
+
+            // Line-aligned chunk boundaries, roughly four chunks per thread
+            long target = Math.max(MIN_CHUNK_BYTES, Math.min(MAX_CHUNK_BYTES, size / (4L * Math.max(1, threads)) + 1));
+            List<Future<HashtagTable>> parts = new ArrayList<>();
+            long start = 0;
+            while (start < size) {
+                long end = start + target >= size ? size : nextLineStart(channel, start + target);
+                MappedByteBuffer chunk = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+                parts.add(executor.submit(() -> parseChunk(chunk, json, prefix)));
+                start = end;
+            }
+
+            HashtagTable merged = new HashtagTable();
+            for (Future<HashtagTable> part : parts) {
+                merged.addAll(part.get());
+            }
+            return merged.top(k);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while loading " + file, e);
+        } catch (ExecutionException e) {
+            throw new IOException("Failed to parse " + file, e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    // Counts the hashtags of every matching line in one chunk
+    private static HashtagTable parseChunk(ByteBuffer chunk, boolean json, byte[] prefix) {
+        HashtagTable table = new HashtagTable();
+        ByteChars text = new ByteChars(chunk);
+        int limit = chunk.limit();
+        int lineStart = 0;
+        while (lineStart < limit) {
+            int lineEnd = lineStart;
+            while (lineEnd < limit && chunk.get(lineEnd) != '\n') {
+                lineEnd++;
+            }
+            long span = json ? jsonSpan(chunk, lineStart, lineEnd, prefix) : csvSpan(chunk, lineStart, lineEnd, prefix);
+            if (span >= 0) {
+                text.reset((int) (span >>> 32), (int) span);
+                table.addAll(text);
+            }
+            lineStart = lineEnd + 1;
+        }
+        return table;
+    }
+
+    // Tweet span of a CSV line as (start << 32 | end), or -1 if the line is skipped
+    private static long csvSpan(ByteBuffer buf, int start, int end, byte[] prefix) {
+        int dateStart = -1;
+        int commas = 0;
+        for (int i = start; i < end; i++) {
+            if (buf.get(i) != ',') continue;
+            if (++commas == 2) {
+                dateStart = i + 1;
+            } else if (commas == 3) {
+                if (buf.get(dateStart) == '"') dateStart++;
+                return startsWith(buf, dateStart, i, prefix) ? ((long) (i + 1) << 32) | end : -1;
+            }
+        }
+        return -1;
+    }
+
+    // Tweet value span of an NDJSON line as (start << 32 | end), or -1 if the line is skipped
+    private static long jsonSpan(ByteBuffer buf, int start, int end, byte[] prefix) {
+        long date = stringValue(buf, start, end, DATE_KEY);
+        if (date < 0 || !startsWith(buf, (int) (date >>> 32), (int) date, prefix)) return -1;
+        return stringValue(buf, start, end, TWEET_KEY);
+    }
+
+    // Finds key followed by ':' and a JSON string; returns the string's content span or -1
+    private static long stringValue(ByteBuffer buf, int start, int end, byte[] key) {
+        for (int i = start; i + key.length <= end; i++) {
+            if (!matches(buf, i, key)) continue;
+            int j = i + key.length;
+            while (j < end && buf.get(j) == ' ') j++;
+            if (j >= end || buf.get(j) != ':') continue; // Matched a value, not a key
+            j++;
+            while (j < end && buf.get(j) == ' ') j++;
+            if (j >= end || buf.get(j) != '"') return -1;
+            int valueStart = ++j;
+            while (j < end && buf.get(j) != '"') {
+                j += buf.get(j) == '\\' ? 2 : 1;
+            }
+            return ((long) valueStart << 32) | Math.min(j, end);
+        }
+        return -1;
+    }
+
+    private static boolean matches(ByteBuffer buf, int at, byte[] bytes) {
+        for (int i = 0; i < bytes.length; i++) {
+            if (buf.get(at + i) != bytes[i]) return false;
+        }
+        return true;
+    }
+
+    private static boolean startsWith(ByteBuffer buf, int start, int end, byte[] prefix) {
+        return end - start >= prefix.length && matches(buf, start, prefix);
+    }
+
+    // Offset just past the first '\n' at or after position, or the file size if there is none
+    private static long nextLineStart(FileChannel channel, long position) throws IOException {
+        ByteBuffer window = ByteBuffer.allocate(8192);
+        long size = channel.size();
+        while (position < size) {
+            window.clear();
+            int read = channel.read(window, position);
+            if (read <= 0) break;
+            for (int i = 0; i < read; i++) {
+                if (window.get(i) == '\n') return position + i + 1;
+            }
+            position += read;
+        }
+        return size;
+    }
+
+    private static boolean isJson(FileChannel channel) throws IOException {
+        ByteBuffer head = ByteBuffer.allocate(256);
+        int read = channel.read(head, 0);
+        for (int i = 0; i < read; i++) {
+            byte b = head.get(i);
+            if (b == '{') return true;
+            if (b != ' ' && b != '\t' && b != '\r' && b != '\n') return false;
+        }
+        return false;
+    }
+
+    /**
+     * Reusable CharSequence view over a byte range, one char per byte. Hashtag characters are ASCII,
+     * and bytes of multi-byte UTF-8 sequences map to chars >= 0x80 that are neither '#' nor word
+     * characters, so scanning the view finds exactly the hashtags of the decoded text.
+     */
+    static final class ByteChars implements CharSequence {
+        private final ByteBuffer buf;
+        private int start;
+        private int end;
+
+        ByteChars(ByteBuffer buf) {
+            this.buf = buf;
+        }
+
+        void reset(int start, int end) {
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        public int length() {
+            return end - start;
+        }
+
+        @Override
+        public char charAt(int index) {
+            return (char) (buf.get(start + index) & 0xFF);
+        }
+
+        @Override
+        public CharSequence subSequence(int from, int to) {
+            ByteChars view = new ByteChars(buf);
+            view.reset(start + from, start + to);
+            return view;
+        }
+
+        @Override
+        public String toString() {
+            byte[] bytes = new byte[length()];
+            buf.get(start, bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+}
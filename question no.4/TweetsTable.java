@@ -1,13 +1,9 @@
 import java.util.*;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 public class TweetsTable {
 
     public static class Tweet {
-        @SuppressWarnings("unused")
         private final int userId;
-        @SuppressWarnings("unused")
         private final int tweetId;
         private final String tweetDate;
         private final String tweet;
@@ -20,6 +16,16 @@ public class TweetsTable {
             this.tweet = tweet;
         }
 
+        // Getter for userId
+        public int getUserId() {
+            return userId;
+        }
+
+        // Getter for tweetId
+        public int getTweetId() {
+            return tweetId;
+        }
+
         // Getter for tweetDate
         public String getTweetDate() {
             return tweetDate;
@@ -33,33 +39,26 @@ public class TweetsTable {
 
     // Method to find top trending hashtags from tweets in February 2024
     public static List<Map.Entry<String, Integer>> findTopTrendingHashtags(List<Tweet> tweets) {
-        Map<String, Integer> hashtagCounts = new HashMap<>(); // Map to store hashtag counts
-        Pattern hashtagPattern = Pattern.compile("#\\w+"); // Precompile regex pattern for efficiency
+        // Hashtags are scanned in place and counted by character span; Strings are only built for the result
+        HashtagTable hashtagCounts = new HashtagTable();
 
         // Iterate through each tweet in the list
         for (Tweet tweet : tweets) {
             String date = tweet.getTweetDate();
             if (date.startsWith("2024-02-")) { // Check if the tweet is from February 2024
-                String text = tweet.getTweet();
-                Matcher matcher = hashtagPattern.matcher(text);
-                while (matcher.find()) {
-                    String hashtag = matcher.group(); // Extract the hashtag
-                    hashtagCounts.put(hashtag, hashtagCounts.getOrDefault(hashtag, 0) + 1); // Update count in HashMap
-                }
+                hashtagCounts.addAll(tweet.getTweet());
             }
         }
 
-        // Convert HashMap entries to a list for sorting
-        List<Map.Entry<String, Integer>> sortedHashtags = new ArrayList<>(hashtagCounts.entrySet());
-
-        // Sort by count (descending), then by hashtag (descending)
-        sortedHashtags.sort((entry1, entry2) -> {
-            int countCompare = entry2.getValue().compareTo(entry1.getValue());
-            return countCompare != 0 ? countCompare : entry2.getKey().compareTo(entry1.getKey());
-        });
+        // Top 3 by count (descending), then by hashtag (descending), or fewer if there are less than 3 entries
+        return hashtagCounts.top(3);
+    }
 
-        // Return top 3 or fewer if there are less than 3 entries
-        return sortedHashtags.subList(0, Math.min(3, sortedHashtags.size()));
+    // Same query over a columnar store: a tight loop over the date and hashtag postings columns
+    public static List<Map.Entry<String, Integer>> findTopTrendingHashtags(ColumnarTweetStore store) {
+        int from = HashtagRollupIndex.epochDay("2024-02-01");
+        int to = HashtagRollupIndex.epochDay("2024-02-29");
+        return store.topHashtags(from, to, 3);
     }
 
     // Main method to test the functionality
@@ -0,0 +1,90 @@
+// Adaptive concurrency limit with additive increase and multiplicative decrease, driven by observed latency.
+// Every fast completion raises the limit by 1 / limit, about +1 per round trip. A failure, or a latency above
+// tolerance times the no-load baseline, cuts it by backoff, at most once per round trip. The baseline is the fastest
+// completion of the last one to two windows of BASELINE_WINDOW_NANOS: an average would rise with the queueing it is
+// meant to detect, and an all-time minimum would never follow a server that got slower for good.
+// Use one limiter per crawl.
+class AimdLimiter {
+    private static final long BASELINE_WINDOW_NANOS = 10_000_000_000L;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double tolerance;
+    private final double backoff;
+
+    private double limit;
+    private int inFlight;
+    private double windowMinNanos = Double.MAX_VALUE;   // Fastest success in the current window
+    private double previousMinNanos = Double.MAX_VALUE; // Fastest success in the window before
+    private long windowStart;
+    private long lastDecrease;
+    private int decreases;
+
+    public AimdLimiter(int initialLimit, int minLimit, int maxLimit) {
+        this(initialLimit, minLimit, maxLimit, 2.0, 0.9);
+    }
+
+    public AimdLimiter(int initialLimit, int minLimit, int maxLimit, double tolerance, double backoff) {
+        if (minLimit < 1 || maxLimit < minLimit) throw new IllegalArgumentException("Need 1 <= minLimit <= maxLimit");
+        if (tolerance <= 1 || backoff <= 0 || backoff >= 1) throw new IllegalArgumentException("Need tolerance > 1 and 0 < backoff < 1");
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.tolerance = tolerance;
+        this.backoff = backoff;
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+        this.lastDecrease = System.nanoTime();
+        this.windowStart = lastDecrease;
+    }
+
+    // Takes a slot if fewer than limit requests are in flight
+    public synchronized boolean tryAcquire() {
+        if (inFlight >= (int) limit) return false;
+        inFlight++;
+        return true;
+    }
+
+    // Returns a slot that was not used for a request
+    public synchronized void release() {
+        inFlight--;
+    }
+
+    // Returns a slot and adjusts the limit to how long its request took
+    public synchronized void release(long latencyNanos, boolean failed) {
+        inFlight--;
+        long now = System.nanoTime();
+        if (now - windowStart >= BASELINE_WINDOW_NANOS) {
+            // The current minimum becomes the previous one, unless it is already more than two windows old
+            previousMinNanos = now - windowStart < 2 * BASELINE_WINDOW_NANOS ? windowMinNanos : Double.MAX_VALUE;
+            windowMinNanos = Double.MAX_VALUE;
+            windowStart = now;
+        }
+        if (!failed) {
+            windowMinNanos = Math.min(windowMinNanos, latencyNanos);
+        }
+        double baselineNanos = Math.min(windowMinNanos, previousMinNanos);
+        if (failed || latencyNanos > baselineNanos * tolerance) {
+            if (now - lastDecrease > Math.min(latencyNanos, baselineNanos * tolerance)) {
+                limit = Math.max(minLimit, limit * backoff);
+                lastDecrease = now;
+                decreases++;
+            }
+        } else {
+            limit = Math.min(maxLimit, limit + 1 / limit);
+        }
+    }
+
+    public synchronized int limit() {
+        return (int) limit;
+    }
+
+    public synchronized int inFlight() {
+        return inFlight;
+    }
+
+    @Override
+    public synchronized String toString() {
+        double baselineNanos = Math.min(windowMinNanos, previousMinNanos);
+        return String.format("limit %d (%d..%d), %d in flight, baseline %.1f ms, %d decreases", (int) limit, minLimit,
+                maxLimit, inFlight, baselineNanos == Double.MAX_VALUE ? 0 : baselineNanos / 1e6, decreases);
+    }
+}
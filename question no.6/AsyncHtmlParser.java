@@ -0,0 +1,13 @@
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+// Asynchronous HTML parser: the future completes with the URLs on the page, so no thread waits for the fetch
+interface AsyncHtmlParser {
+    CompletableFuture<List<String>> getUrlsAsync(String url);
+
+    // Adapter for a synchronous parser, whose calls run on the given executor
+    static AsyncHtmlParser of(HtmlParser parser, Executor executor) {
+        return url -> CompletableFuture.supplyAsync(() -> parser.getUrls(url), executor);
+    }
+}
@@ -0,0 +1,63 @@
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+
+// NumberPrinter that encodes digits straight into a reusable byte buffer and writes it out in large blocks.
+// Not thread-safe by itself: the controllers only let the thread that owns the current turn print.
+class BufferedNumberPrinter extends NumberPrinter {
+    private final OutputStream out;
+    private final byte[] buffer;
+    private int size;
+
+    public BufferedNumberPrinter(OutputStream out, int capacity) {
+        this.out = out;
+        this.buffer = new byte[Math.max(capacity, 16)];
+    }
+
+    @Override
+    public void printZero() {
+        if (size == buffer.length) flush();
+        buffer[size++] = '0';
+    }
+
+    @Override
+    public void printEven(int num) {
+        writeInt(num);
+    }
+
+    @Override
+    public void printOdd(int num) {
+        writeInt(num);
+    }
+
+    // Hand-rolled int to ASCII: digits are produced from the right, straight into the buffer
+    private void writeInt(int num) {
+        if (buffer.length - size < 11) flush(); // Longest int is "-2147483648"
+        long value = num; // long, so that -Integer.MIN_VALUE does not overflow
+        if (value < 0) {
+            buffer[size++] = '-';
+            value = -value;
+        }
+        int digits = 1;
+        for (long rest = value / 10; rest > 0; rest /= 10) {
+            digits++;
+        }
+        int end = size + digits;
+        for (int i = end - 1; i >= size; i--) {
+            buffer[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        size = end;
+    }
+
+    // Writes out everything buffered so far
+    public void flush() {
+        try {
+            out.write(buffer, 0, size);
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        size = 0;
+    }
+}
@@ -0,0 +1,142 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Compares WebCrawler.crawl, which sends every URL through one dispatcher loop, with crawlConcurrent on a pool of the
+// same size, a larger pool and virtual threads, and with the streaming crawl that keeps its frontier on disk. The site
+// is generated, and the parser sleeps to stand in for network latency, so pages per second should follow the number
+// of parser calls in flight. The asynchronous runs fetch from a simulated server that slows down, and finally fails
+// requests, beyond its capacity.
+public class CrawlBenchmark {
+    public static void main(String[] args) {
+        int pages = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        int latencyMillis = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        HtmlParser parser = site(pages, 8, latencyMillis, new Random(42));
+        String start = "http://site.example/0";
+        WebCrawler crawler = new WebCrawler();
+
+        run("dispatcher, 4 threads", pages, () -> crawler.crawl(start, parser));
+        run("concurrent, 4 threads", pages, () -> crawler.crawlConcurrent(start, parser, 4));
+        run("concurrent, 64 threads", pages, () -> crawler.crawlConcurrent(start, parser, 64));
+        run("concurrent, virtual", pages, () -> crawler.crawlConcurrent(start, parser));
+        runStreaming("streaming, 64 threads", pages,
+                frontier -> crawler.crawl(start, parser, frontier, new UrlBloomFilter(pages, 1e-6), url -> { }, 64));
+
+        // The server handles 32 requests at base latency; beyond that each request takes proportionally longer
+        SimulatedServer server = new SimulatedServer(links(pages, 8, new Random(42)), latencyMillis, 32);
+        run("async, fixed 256", pages, server, () -> crawler.crawlAsync(start, server,
+                new HostRateLimiter(1e9, 1_000_000), new AimdLimiter(256, 256, 256)));
+        AimdLimiter aimd = new AimdLimiter(4, 1, 256);
+        run("async, AIMD", pages, server, () -> crawler.crawlAsync(start, server, new HostRateLimiter(1e9, 1_000_000), aimd));
+        System.out.println("  " + aimd);
+        run("async, AIMD, 500/s/host", pages, server, () -> crawler.crawlAsync(start, server,
+                new HostRateLimiter(500, 10), new AimdLimiter(4, 1, 256)));
+    }
+
+    private static void run(String name, int pages, java.util.function.Supplier<List<String>> crawl) {
+        long start = System.nanoTime();
+        List<String> urls = crawl.get();
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%-24s %d of %d pages in %.2f s, %.0f pages/s%n", name, urls.size(), pages, seconds, urls.size() / seconds);
+    }
+
+    // Crawl with a disk frontier in a temporary directory; the sink only counts
+    private static void runStreaming(String name, int pages, java.util.function.ToLongFunction<DiskFrontier> crawl) {
+        try {
+            Path directory = Files.createTempDirectory("frontier");
+            long start = System.nanoTime();
+            long count;
+            try (DiskFrontier frontier = new DiskFrontier(directory, 1 << 20)) {
+                count = crawl.applyAsLong(frontier);
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+            Files.delete(directory);
+            System.out.printf("%-24s %d of %d pages in %.2f s, %.0f pages/s%n", name, count, pages, seconds, count / seconds);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void run(String name, int pages, SimulatedServer server, java.util.function.Supplier<CompletableFuture<List<String>>> crawl) {
+        server.reset();
+        run(name, pages, () -> crawl.get().join());
+        System.out.printf("  peak %d in flight, %d failed fetches%n", server.peak.get(), server.failures.get());
+    }
+
+    // Pages 0..pages-1, each linking to links random pages plus one page on another host; page i also links to i + 1
+    // so that every page is reachable
+    private static HtmlParser site(int pages, int links, int latencyMillis, Random random) {
+        Map<String, List<String>> urlMap = links(pages, links, random);
+        return url -> {
+            try {
+                Thread.sleep(latencyMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return urlMap.getOrDefault(url, Collections.emptyList());
+        };
+    }
+
+    private static Map<String, List<String>> links(int pages, int links, Random random) {
+        Map<String, List<String>> urlMap = new HashMap<>();
+        for (int i = 0; i < pages; i++) {
+            List<String> urls = new ArrayList<>();
+            if (i + 1 < pages) urls.add("http://site.example/" + (i + 1));
+            for (int j = 0; j < links; j++) {
+                urls.add("http://site.example/" + random.nextInt(pages));
+            }
+            urls.add("http://other.example/" + i);
+            urlMap.put("http://site.example/" + i, urls);
+        }
+        return urlMap;
+    }
+
+    // Answers from a timer thread. A request takes the base latency while at most capacity are in flight, and
+    // proportionally longer beyond that; above four times the capacity requests fail.
+    private static final class SimulatedServer implements AsyncHtmlParser {
+        private final Map<String, List<String>> urlMap;
+        private final int latencyMillis;
+        private final int capacity;
+        private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "simulated-server");
+            t.setDaemon(true);
+            return t;
+        });
+        private final AtomicInteger inFlight = new AtomicInteger();
+        final AtomicInteger peak = new AtomicInteger();
+        final AtomicInteger failures = new AtomicInteger();
+
+        SimulatedServer(Map<String, List<String>> urlMap, int latencyMillis, int capacity) {
+            this.urlMap = urlMap;
+            this.latencyMillis = latencyMillis;
+            this.capacity = capacity;
+        }
+
+        void reset() {
+            peak.set(0);
+            failures.set(0);
+        }
+
+        @Override
+        public CompletableFuture<List<String>> getUrlsAsync(String url) {
+            int n = inFlight.incrementAndGet();
+            peak.accumulateAndGet(n, Math::max);
+            CompletableFuture<List<String>> page = new CompletableFuture<>();
+            long micros = latencyMillis * 1000L * Math.max(capacity, n) / capacity;
+            timer.schedule(() -> {
+                inFlight.decrementAndGet();
+                if (n > 4 * capacity) {
+                    failures.incrementAndGet();
+                    page.completeExceptionally(new IllegalStateException("503 Service Unavailable"));
+                } else {
+                    page.complete(urlMap.getOrDefault(url, Collections.emptyList()));
+                }
+            }, micros, TimeUnit.MICROSECONDS);
+            return page;
+        }
+    }
+}
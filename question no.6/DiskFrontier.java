@@ -0,0 +1,116 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// FIFO queue of URLs kept in memory-mapped segment files, so a frontier of billions of URLs costs disk, not heap.
+// Each entry is a 4-byte length followed by the UTF-8 bytes; a length of -1 marks the unused end of a segment.
+// URLs are appended to the newest segment and read from the oldest one, which is deleted once it has been read,
+// so the disk holds about the unread part of the queue. Only the segment being written and the one being read are
+// mapped; the operating system pages them in and out as needed.
+class DiskFrontier implements AutoCloseable {
+    private static final int END_OF_SEGMENT = -1;
+
+    private final Path directory;
+    private final int segmentBytes;
+    private long size;
+
+    private long writeSegment;
+    private MappedByteBuffer writeBuffer;
+    private int writePosition;
+
+    private long readSegment;
+    private MappedByteBuffer readBuffer; // Same as writeBuffer while both are on one segment
+    private int readPosition;
+
+    // Keeps segments of segmentBytes each in directory, which should be empty or hold no other frontier
+    public DiskFrontier(Path directory, int segmentBytes) throws IOException {
+        if (segmentBytes < 64) throw new IllegalArgumentException("segmentBytes must be at least 64");
+        this.directory = Files.createDirectories(directory);
+        this.segmentBytes = segmentBytes;
+        this.writeBuffer = map(0);
+        this.readBuffer = writeBuffer;
+    }
+
+    public DiskFrontier(Path directory) throws IOException {
+        this(directory, 64 << 20);
+    }
+
+    public synchronized void offer(String url) {
+        byte[] bytes = url.getBytes(StandardCharsets.UTF_8);
+        int needed = 4 + bytes.length;
+        if (needed > segmentBytes) throw new IllegalArgumentException("URL longer than a segment: " + bytes.length + " bytes");
+        if (writePosition + needed > segmentBytes) {
+            if (writePosition + 4 <= segmentBytes) writeBuffer.putInt(writePosition, END_OF_SEGMENT);
+            writeBuffer = map(++writeSegment);
+            writePosition = 0;
+        }
+        writeBuffer.putInt(writePosition, bytes.length);
+        writeBuffer.put(writePosition + 4, bytes);
+        writePosition += needed;
+        size++;
+    }
+
+    // Removes and returns the oldest URL, or null if the frontier is empty
+    public synchronized String poll() {
+        if (size == 0) return null;
+        int length = readPosition + 4 <= segmentBytes ? readBuffer.getInt(readPosition) : END_OF_SEGMENT;
+        if (length == END_OF_SEGMENT) {
+            delete(readSegment++);
+            readBuffer = readSegment == writeSegment ? writeBuffer : map(readSegment);
+            readPosition = 0;
+            length = readBuffer.getInt(0);
+        }
+        byte[] bytes = new byte[length];
+        readBuffer.get(readPosition + 4, bytes);
+        readPosition += 4 + length;
+        size--;
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    public synchronized long size() {
+        return size;
+    }
+
+    public synchronized boolean isEmpty() {
+        return size == 0;
+    }
+
+    // Deletes the remaining segment files
+    @Override
+    public synchronized void close() {
+        for (long s = readSegment; s <= writeSegment; s++) {
+            delete(s);
+        }
+        readBuffer = writeBuffer = null;
+        size = 0;
+    }
+
+    private MappedByteBuffer map(long segment) {
+        // The mapping stays valid after the channel is closed
+        try (FileChannel channel = FileChannel.open(file(segment), StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // A mapped file cannot be unmapped explicitly; where deleting it then fails (Windows), it goes at exit instead
+    private void delete(long segment) {
+        Path file = file(segment);
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            file.toFile().deleteOnExit();
+        }
+    }
+
+    private Path file(long segment) {
+        return directory.resolve(String.format("frontier-%08d.seg", segment));
+    }
+}
@@ -0,0 +1,138 @@
+import java.io.OutputStream;
+import java.util.Collections;
+import java.util.concurrent.ThreadFactory;
+
+// Compares turns per second (one hand-off each) of the notifyAll-based MonitorThreadController and the OrderedSequencer-based
+// ThreadController on platform and virtual threads. All print into a BufferedNumberPrinter that discards its output,
+// so the numbers measure thread coordination rather than the console. A last run shows what batching saves when a
+// stage owns blocks of consecutive turns.
+public class HandoffBenchmark {
+    private static final int BLOCK = 64;
+
+    public static void main(String[] args) throws InterruptedException {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        long turns = 2L * n;
+        for (int round = 1; round <= rounds; round++) {
+            BufferedNumberPrinter monitorOut = new BufferedNumberPrinter(OutputStream.nullOutputStream(), 1 << 16);
+            long start = System.nanoTime();
+            new MonitorThreadController(monitorOut, n).startThreads();
+            long monitorNanos = System.nanoTime() - start;
+            monitorOut.flush();
+
+            OrderedSequencer.Stats platform = sequenced(n, Thread::new);
+            OrderedSequencer.Stats virtual = sequenced(n, Thread.ofVirtual().factory());
+            System.out.printf("round %d: monitor %.0f turns/s, sequencer %.0f turns/s (%.1fx), virtual %.0f turns/s (%.1fx)%n",
+                    round, turns / (monitorNanos / 1e9), platform.turnsPerSecond(), (double) monitorNanos / platform.elapsedNanos,
+                    virtual.turnsPerSecond(), (double) monitorNanos / virtual.elapsedNanos);
+            System.out.println("  platform: " + platform);
+            System.out.println("  virtual:  " + virtual);
+        }
+
+        // Three stages owning blocks of BLOCK turns, with one hand-off per turn and one per block
+        for (int maxBatch : new int[]{1, BLOCK}) {
+            OrderedSequencer blocks = new OrderedSequencer(Collections.nCopies(3, turn -> { }),
+                    turn -> (int) (turn / BLOCK % 3), Thread::new, maxBatch);
+            System.out.println("blocks of " + BLOCK + ", maxBatch " + maxBatch + ": " + blocks.run(turns));
+        }
+    }
+
+    private static OrderedSequencer.Stats sequenced(int n, ThreadFactory threads) throws InterruptedException {
+        BufferedNumberPrinter out = new BufferedNumberPrinter(OutputStream.nullOutputStream(), 1 << 16);
+        OrderedSequencer.Stats stats = new ThreadController(out, n, threads).startThreads();
+        out.flush();
+        return stats;
+    }
+}
+
+// The original notifyAll-based ThreadController, kept as the baseline that OrderedSequencer is measured against
+class MonitorThreadController {
+    private final NumberPrinter printer;
+    private final int n;  // Upper limit of numbers to print
+    private int currentNumber = 1;  // Tracks the current number to print
+    private boolean zeroTurn = true; // Boolean to track whether it's zero's turn
+    private final Object lock = new Object(); // Lock object for synchronization
+
+    // Constructor to initialize printer and limit
+    public MonitorThreadController(NumberPrinter printer, int n) {
+        this.printer = printer;
+        this.n = n;
+    }
+
+    // Method to start three threads: zero-printing, odd-printing, and even-printing
+    public void startThreads() throws InterruptedException {
+        // Thread to print '0' alternately before each number
+        Thread zeroThread = new Thread(() -> {
+            try {
+                while (true) {
+                    synchronized (lock) {
+                        while (!zeroTurn) { // Wait if it's not zero's turn
+                            lock.wait();
+                            if (currentNumber > n) break; // Stop if number exceeds limit
+                        }
+                        if (currentNumber > n) break;
+                        printer.printZero();
+                        zeroTurn = false; // Switch turn to number printing
+                        lock.notifyAll(); // Notify waiting threads
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        // Thread to print odd numbers
+        Thread oddThread = new Thread(() -> {
+            try {
+                while (true) {
+                    synchronized (lock) {
+                        // Wait until it's not zero's turn and number is odd
+                        while (currentNumber <= n && (zeroTurn || currentNumber % 2 == 0)) {
+                            lock.wait();
+                            if (currentNumber > n) break;
+                        }
+                        if (currentNumber > n) break;
+                        printer.printOdd(currentNumber);
+                        currentNumber++; // Increment number after printing
+                        zeroTurn = true; // Switch turn back to zero
+                        lock.notifyAll(); // Notify other threads
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        // Thread to print even numbers
+        Thread evenThread = new Thread(() -> {
+            try {
+                while (true) {
+                    synchronized (lock) {
+                        // Wait until it's not zero's turn and number is even
+                        while (currentNumber <= n && (zeroTurn || currentNumber % 2 != 0)) {
+                            lock.wait();
+                            if (currentNumber > n) break;
+                        }
+                        if (currentNumber > n) break;
+                        printer.printEven(currentNumber);
+                        currentNumber++; // Increment number after printing
+                        zeroTurn = true; // Switch turn back to zero
+                        lock.notifyAll(); // Notify other threads
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        // Start all threads
+        zeroThread.start();
+        oddThread.start();
+        evenThread.start();
+
+        // Ensure all threads complete execution before main thread exits
+        zeroThread.join();
+        oddThread.join();
+        evenThread.join();
+    }
+}
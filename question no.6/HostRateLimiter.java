@@ -0,0 +1,38 @@
+import java.util.concurrent.ConcurrentHashMap;
+
+// Per-host politeness limit: a token bucket for every host, refilled at ratePerSecond up to burst tokens.
+// reserve never blocks. It takes a token, possibly going into debt, and returns how long the caller has to wait
+// before using it, so callers schedule delayed fetches instead of holding a thread while they wait.
+class HostRateLimiter {
+    private final double ratePerSecond;
+    private final double burst;
+    private final ConcurrentHashMap<String, Bucket> buckets = new ConcurrentHashMap<>();
+
+    public HostRateLimiter(double ratePerSecond, int burst) {
+        if (ratePerSecond <= 0) throw new IllegalArgumentException("ratePerSecond must be positive");
+        if (burst < 1) throw new IllegalArgumentException("burst must be at least 1");
+        this.ratePerSecond = ratePerSecond;
+        this.burst = burst;
+    }
+
+    // Takes a token for host and returns the delay in nanoseconds before it may be used (0 if it is available now)
+    public long reserve(String host) {
+        return buckets.computeIfAbsent(host, h -> new Bucket(burst)).reserve(System.nanoTime());
+    }
+
+    private final class Bucket {
+        private double tokens;
+        private long refilledAt = System.nanoTime();
+
+        Bucket(double tokens) {
+            this.tokens = tokens;
+        }
+
+        synchronized long reserve(long now) {
+            tokens = Math.min(burst, tokens + (now - refilledAt) / 1e9 * ratePerSecond);
+            refilledAt = now;
+            tokens--; // Negative tokens are reservations waiting for the refill
+            return tokens >= 0 ? 0 : (long) (-tokens / ratePerSecond * 1e9);
+        }
+    }
+}
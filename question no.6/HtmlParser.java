@@ -0,0 +1,6 @@
+import java.util.List;
+
+// Interface for HTML Parser that retrieves URLs from a given page
+interface HtmlParser {
+    List<String> getUrls(String url);
+}
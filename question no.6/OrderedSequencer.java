@@ -0,0 +1,218 @@
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongConsumer;
+import java.util.function.LongToIntFunction;
+
+// Runs turns 0, 1, 2, ... of a shared sequence strictly in order, each on the thread of the stage that owns it.
+// A turn-selection function maps every turn to one of N stages; each stage runs on its own thread, created by a
+// ThreadFactory (platform threads, or virtual threads with Thread.ofVirtual().factory()).
+// The stage that finishes a turn publishes the next one through a volatile counter and unparks only its owner, and
+// only if that owner is actually parked. Consecutive turns of the same stage run in one wake-up, up to maxBatch, so
+// the hand-off is paid once per batch instead of once per turn.
+class OrderedSequencer {
+    // Busy-wait this many times before parking; never on one core, where spinning only delays the thread being waited for
+    private static final int SPINS = Runtime.getRuntime().availableProcessors() > 1 ? 100 : 0;
+
+    private final LongConsumer[] stages;
+    private final LongToIntFunction owner;
+    private final ThreadFactory threadFactory;
+    private final int maxBatch;
+
+    // State of the current run
+    private long turns;
+    private volatile long turn; // Next turn to run; written only by the stage that owns the current one
+    private long publishedAt; // When turn was last published; read after turn, so the volatile write covers it
+    private Thread[] threads;
+    private AtomicIntegerArray parked; // 1 while a stage may be parked
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+    // Per-stage statistics, each written only by its own stage
+    private long[] turnsRun;
+    private long[] wakeups;
+    private long[] latencyNanos;
+    private long[] maxLatencyNanos;
+
+    public OrderedSequencer(List<? extends LongConsumer> stages, LongToIntFunction owner, ThreadFactory threadFactory, int maxBatch) {
+        if (stages.isEmpty()) throw new IllegalArgumentException("At least one stage is needed");
+        if (maxBatch < 1) throw new IllegalArgumentException("maxBatch must be at least 1");
+        this.stages = stages.toArray(new LongConsumer[0]);
+        this.owner = owner;
+        this.threadFactory = threadFactory;
+        this.maxBatch = maxBatch;
+    }
+
+    // Runs turns 0 .. turns - 1 and waits for all stages to finish. A stage that throws stops the run, and its
+    // exception is rethrown here.
+    public synchronized Stats run(long turns) throws InterruptedException {
+        int n = stages.length;
+        if (turns > 0) checkStage(0, owner.applyAsInt(0));
+        this.turns = turns;
+        this.turn = 0;
+        failure.set(null);
+        threads = new Thread[n];
+        parked = new AtomicIntegerArray(n);
+        turnsRun = new long[n];
+        wakeups = new long[n];
+        latencyNanos = new long[n];
+        maxLatencyNanos = new long[n];
+
+        for (int s = 0; s < n; s++) {
+            int self = s;
+            threads[s] = threadFactory.newThread(() -> runStage(self));
+        }
+        long start = System.nanoTime();
+        publishedAt = start;
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        try {
+            for (Thread thread : threads) {
+                thread.join();
+            }
+        } catch (InterruptedException e) {
+            fail(e);
+            throw e;
+        }
+        long elapsed = System.nanoTime() - start;
+
+        Throwable error = failure.get();
+        if (error instanceof RuntimeException) throw (RuntimeException) error;
+        if (error instanceof Error) throw (Error) error;
+        if (error instanceof InterruptedException) throw (InterruptedException) error;
+        if (error != null) throw new IllegalStateException("Stage failed", error);
+        return new Stats(turns, elapsed, turnsRun.clone(), wakeups.clone(), latencyNanos.clone(), maxLatencyNanos.clone());
+    }
+
+    private void runStage(int self) {
+        try {
+            long t;
+            while ((t = awaitTurn(self)) >= 0) {
+                // Hand-off latency: from the previous stage publishing this turn until this stage picked it up
+                long latency = System.nanoTime() - publishedAt;
+                latencyNanos[self] += latency;
+                maxLatencyNanos[self] = Math.max(maxLatencyNanos[self], latency);
+                wakeups[self]++;
+
+                LongConsumer stage = stages[self];
+                int batch = 0;
+                do {
+                    stage.accept(t++);
+                    batch++;
+                } while (batch < maxBatch && t < turns && owner.applyAsInt(t) == self);
+                turnsRun[self] += batch;
+                handOff(t);
+            }
+        } catch (Throwable e) {
+            fail(e);
+        }
+    }
+
+    // Waits until the current turn belongs to this stage; returns it, or -1 once the run is over
+    private long awaitTurn(int self) throws InterruptedException {
+        int spins = SPINS;
+        long seen = -1;
+        boolean mine = false;
+        while (failure.get() == null) {
+            long t = turn;
+            if (t >= turns) return -1;
+            if (t != seen) {
+                seen = t;
+                mine = owner.applyAsInt(t) == self;
+            }
+            if (mine) return t;
+            if (spins > 0) {
+                spins--;
+                Thread.onSpinWait();
+            } else if (parked.get(self) == 0) {
+                parked.set(self, 1); // Re-check turn before parking, so a hand-off in between is not missed
+            } else {
+                LockSupport.park(this);
+                parked.set(self, 0);
+                if (Thread.interrupted()) throw new InterruptedException();
+                spins = SPINS;
+            }
+        }
+        return -1;
+    }
+
+    // Publishes turn next and wakes whoever has to act on it
+    private void handOff(long next) {
+        publishedAt = System.nanoTime();
+        turn = next;
+        if (next >= turns) {
+            for (Thread thread : threads) {
+                LockSupport.unpark(thread);
+            }
+            return;
+        }
+        int s = owner.applyAsInt(next);
+        checkStage(next, s);
+        if (parked.get(s) == 1) {
+            LockSupport.unpark(threads[s]);
+        }
+    }
+
+    private void checkStage(long t, int s) {
+        if (s < 0 || s >= stages.length) {
+            throw new IllegalStateException("Turn " + t + " mapped to stage " + s + " of " + stages.length);
+        }
+    }
+
+    private void fail(Throwable e) {
+        failure.compareAndSet(null, e);
+        for (Thread thread : threads) {
+            LockSupport.unpark(thread);
+        }
+    }
+
+    // Throughput and hand-off latency of one run
+    static final class Stats {
+        final long turns;
+        final long elapsedNanos;
+        final long[] turnsPerStage;
+        final long[] wakeupsPerStage; // Hand-offs received, one per batch
+        private final long[] latencyNanos;
+        private final long[] maxLatencyNanos;
+
+        Stats(long turns, long elapsedNanos, long[] turnsPerStage, long[] wakeupsPerStage, long[] latencyNanos, long[] maxLatencyNanos) {
+            this.turns = turns;
+            this.elapsedNanos = elapsedNanos;
+            this.turnsPerStage = turnsPerStage;
+            this.wakeupsPerStage = wakeupsPerStage;
+            this.latencyNanos = latencyNanos;
+            this.maxLatencyNanos = maxLatencyNanos;
+        }
+
+        double turnsPerSecond() {
+            return turns / Math.max(1e-9, elapsedNanos / 1e9);
+        }
+
+        double nanosPerTurn() {
+            return turns == 0 ? 0 : (double) elapsedNanos / turns;
+        }
+
+        long handoffs() {
+            return Arrays.stream(wakeupsPerStage).sum();
+        }
+
+        double meanHandoffNanos() {
+            long handoffs = handoffs();
+            return handoffs == 0 ? 0 : (double) Arrays.stream(latencyNanos).sum() / handoffs;
+        }
+
+        long maxHandoffNanos() {
+            return Arrays.stream(maxLatencyNanos).max().orElse(0);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d turns in %.1f ms: %.0f turns/s, %.0f ns/turn; %d hand-offs, latency mean %.0f ns, max %.1f us; turns per stage %s",
+                    turns, elapsedNanos / 1e6, turnsPerSecond(), nanosPerTurn(), handoffs(), meanHandoffNanos(),
+                    maxHandoffNanos() / 1e3, Arrays.toString(turnsPerStage));
+        }
+    }
+}
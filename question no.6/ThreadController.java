@@ -0,0 +1,40 @@
+import java.util.List;
+import java.util.concurrent.ThreadFactory;
+
+// Class to control synchronized printing of numbers using threads, on top of OrderedSequencer.
+// Turn 2k - 2 prints the zero before k, turn 2k - 1 prints k on the odd or even thread.
+class ThreadController {
+    private static final int ZERO = 0, ODD = 1, EVEN = 2; // Stage indices
+
+    private final int n;  // Upper limit of numbers to print
+    private final OrderedSequencer sequencer;
+
+    // Constructor to initialize printer and limit; runs on platform threads
+    public ThreadController(NumberPrinter printer, int n) {
+        this(printer, n, Thread::new);
+    }
+
+    // threadFactory creates the zero, odd and even threads, e.g. Thread.ofVirtual().factory()
+    public ThreadController(NumberPrinter printer, int n, ThreadFactory threadFactory) {
+        this.n = n;
+        this.sequencer = new OrderedSequencer(List.of(
+                turn -> printer.printZero(),
+                turn -> printer.printOdd(number(turn)),
+                turn -> printer.printEven(number(turn))),
+                ThreadController::stage, threadFactory, 1); // Consecutive turns never share a stage, so no batching
+    }
+
+    // Method to start the zero-printing, odd-printing, and even-printing threads and wait for them
+    public OrderedSequencer.Stats startThreads() throws InterruptedException {
+        return sequencer.run(2L * Math.max(n, 0));
+    }
+
+    private static int number(long turn) {
+        return (int) ((turn + 1) / 2);
+    }
+
+    private static int stage(long turn) {
+        if (turn % 2 == 0) return ZERO;
+        return number(turn) % 2 == 1 ? ODD : EVEN;
+    }
+}
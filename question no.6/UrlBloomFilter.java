@@ -0,0 +1,92 @@
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+// Fixed-size Bloom filter for visited URLs. Each URL is reduced to a 64-bit fingerprint without allocating, and the
+// k bit positions come from double hashing of its two halves, so a URL costs k bit probes and no objects. Memory is
+// set once from the expected number of URLs and the false-positive rate, about 1.2 GB for a billion URLs at 1%.
+// A false positive means a new URL is taken for visited and skipped.
+// Bits are set by CAS on their word, so there is no filter-wide lock. An add only locks one of STRIPES locks chosen by
+// fingerprint, so two adds of the same URL cannot both be told it is new while other URLs go ahead in parallel.
+class UrlBloomFilter {
+    private static final int STRIPES = 64; // Power of two
+    private final Object[] stripes = new Object[STRIPES];
+    private final AtomicLongArray bits;
+    private final long bitCount;
+    private final int hashes;
+    private final LongAdder added = new LongAdder();
+
+    public UrlBloomFilter(long expectedUrls, double falsePositiveRate) {
+        if (expectedUrls < 1) throw new IllegalArgumentException("expectedUrls must be positive");
+        if (falsePositiveRate <= 0 || falsePositiveRate >= 1) throw new IllegalArgumentException("Need 0 < falsePositiveRate < 1");
+        double ln2 = Math.log(2);
+        long words = (long) Math.ceil(-expectedUrls * Math.log(falsePositiveRate) / (ln2 * ln2) / 64);
+        if (words > Integer.MAX_VALUE - 8) throw new IllegalArgumentException("Filter would need more than 16 GB");
+        this.bits = new AtomicLongArray((int) Math.max(1, words));
+        this.bitCount = bits.length() * 64L;
+        this.hashes = (int) Math.max(1, Math.round((double) bitCount / expectedUrls * ln2));
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Object();
+        }
+    }
+
+    // Marks url as visited; returns true if it was not (as far as the filter can tell)
+    public boolean add(String url) {
+        long fingerprint = fingerprint(url);
+        boolean added;
+        synchronized (stripes[(int) fingerprint & (STRIPES - 1)]) {
+            added = probe(fingerprint, true);
+        }
+        if (added) this.added.increment();
+        return added;
+    }
+
+    public boolean mightContain(String url) {
+        return !probe(fingerprint(url), false);
+    }
+
+    // URLs added so far
+    public long size() {
+        return added.sum();
+    }
+
+    // Walks the k bit positions of a fingerprint and reports whether any was clear. With set, clear bits are set
+    // by CAS on their word; otherwise the walk stops at the first clear bit.
+    private boolean probe(long h1, boolean set) {
+        long h2 = (h1 >>> 32 | h1 << 32) | 1; // Odd, so the probes do not repeat early
+        boolean clear = false;
+        for (int i = 0; i < hashes; i++) {
+            long bit = Long.remainderUnsigned(h1 + i * h2, bitCount);
+            int word = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            long old = bits.get(word);
+            while ((old & mask) == 0) {
+                if (!set) return true;
+                long witness = bits.compareAndExchange(word, old, old | mask);
+                if (witness == old) {
+                    clear = true;
+                    break;
+                }
+                old = witness;
+            }
+        }
+        return clear;
+    }
+
+    public long memoryBytes() {
+        return bits.length() * 8L;
+    }
+
+    // FNV-1a over the chars, then the MurmurHash3 finalizer so that every fingerprint bit depends on every char
+    static long fingerprint(String url) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < url.length(); i++) {
+            h = (h ^ url.charAt(i)) * 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -1,10 +1,10 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.*;
 import java.util.concurrent.*;
-
-// Interface for HTML Parser that retrieves URLs from a given page
-interface HtmlParser {
-    List<String> getUrls(String url);
-}
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 
 // WebCrawler class to perform multi-threaded web crawling
 public class WebCrawler {
@@ -44,6 +44,31 @@ public class WebCrawler {
         System.out.println("\nTest Case 2 - Start with google.com:");
         List<String> result2 = crawler.crawl("http://news.google.com", parser);
         System.out.println("Crawled URLs: " + result2);
+
+        // Test case 3: Same crawl without the dispatcher loop, on virtual threads
+        System.out.println("\nTest Case 3 - Concurrent crawl of yahoo.com:");
+        List<String> result3 = crawler.crawlConcurrent("http://news.yahoo.com", parser);
+        System.out.println("Crawled URLs: " + result3);
+
+        // Test case 4: Asynchronous crawl with politeness and adaptive concurrency limits
+        System.out.println("\nTest Case 4 - Asynchronous crawl of yahoo.com:");
+        List<String> result4 = crawler.crawlAsync("http://news.yahoo.com",
+                AsyncHtmlParser.of(parser, ForkJoinPool.commonPool())).join();
+        System.out.println("Crawled URLs: " + result4);
+
+        // Test case 5: Streaming crawl with the frontier on disk and a Bloom filter for visited URLs
+        System.out.println("\nTest Case 5 - Streaming crawl of yahoo.com:");
+        try {
+            Path directory = Files.createTempDirectory("frontier");
+            try (DiskFrontier frontier = new DiskFrontier(directory, 1 << 20)) {
+                long count = crawler.crawl("http://news.yahoo.com", parser, frontier, new UrlBloomFilter(1000, 0.01),
+                        url -> System.out.println("Crawled URL: " + url), 4);
+                System.out.println("Crawled " + count + " URLs");
+            }
+            Files.delete(directory);
+        } catch (IOException e) {
+            System.out.println("Frontier directory failed: " + e.getMessage());
+        }
     }
 
     /**
@@ -76,7 +101,7 @@ public class WebCrawler {
             String url = queue.poll();
             if (url != null) {
                 // Ensure that the URL belongs to the same domain and is not visited
-                if (getHostName(url).equals(hostName) && !visited.contains(url)) {
+                if (sameHost(url, hostName) && !visited.contains(url)) {
                     res.add(url);
                     visited.add(url);
 
@@ -106,13 +131,361 @@ public class WebCrawler {
 
         return res; // Return the list of crawled URLs
     }
+
+    /**
+     * Multi-threaded web crawler without a dispatcher loop: each worker claims the URLs it finds through a
+     * concurrent set and submits their tasks itself, so throughput is bounded by the parser, not by one thread.
+     * The crawl is over when the count of pending tasks drops to zero.
+     * @param startUrl The starting URL.
+     * @param htmlParser The parser to extract URLs; called from several threads at once.
+     * @param executor Runs one task per page; it is not shut down here.
+     * @return A list of URLs that belong to the same domain, in the order they were claimed.
+     */
+    public List<String> crawlConcurrent(String startUrl, HtmlParser htmlParser, ExecutorService executor) {
+        ConcurrentCrawl crawl = new ConcurrentCrawl(getHostName(startUrl), htmlParser, executor);
+        crawl.claim(startUrl);
+        try {
+            crawl.done.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt(); // Return what was found so far
+        }
+        return new ArrayList<>(crawl.res);
+    }
+
+    /**
+     * Concurrent crawl on a fixed pool of daemon threads.
+     * @param threads Number of worker threads.
+     */
+    public List<String> crawlConcurrent(String startUrl, HtmlParser htmlParser, int threads) {
+        ExecutorService executor = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r);
+            t.setDaemon(true);
+            return t;
+        });
+        try {
+            return crawlConcurrent(startUrl, htmlParser, executor);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Concurrent crawl with one virtual thread per page, for parsers that mostly wait on the network.
+     */
+    public List<String> crawlConcurrent(String startUrl, HtmlParser htmlParser) {
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        try {
+            return crawlConcurrent(startUrl, htmlParser, executor);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Asynchronous web crawler that holds no thread while a page is being fetched. How many fetches are in flight is
+     * decided by an AIMD limiter from the parser's latency, and each host is additionally held to its token-bucket
+     * rate: a fetch without a token is scheduled for when one becomes available.
+     * @param startUrl The starting URL.
+     * @param htmlParser The asynchronous parser; see AsyncHtmlParser.of for a synchronous one.
+     * @param hostLimiter Politeness limit per host.
+     * @param concurrency Limit on fetches in flight, adjusted while the crawl runs.
+     * @return A future with the URLs that belong to the same domain, in the order they were claimed.
+     */
+    public CompletableFuture<List<String>> crawlAsync(String startUrl, AsyncHtmlParser htmlParser,
+                                                      HostRateLimiter hostLimiter, AimdLimiter concurrency) {
+        AsyncCrawl crawl = new AsyncCrawl(getHostName(startUrl), htmlParser, hostLimiter, concurrency);
+        crawl.claim(startUrl);
+        return crawl.done.thenApply(ignored -> new ArrayList<>(crawl.res));
+    }
+
+    /**
+     * Asynchronous crawl at no more than 100 pages per second per host, with 4 to 256 fetches in flight.
+     */
+    public CompletableFuture<List<String>> crawlAsync(String startUrl, AsyncHtmlParser htmlParser) {
+        return crawlAsync(startUrl, htmlParser, new HostRateLimiter(100, 20), new AimdLimiter(4, 4, 256));
+    }
+
+    // State of one asynchronous crawl. URLs wait in a queue until the limiter grants a slot; completions release the
+    // slot and pull the next URLs. Completions always run as tasks of their own, so a parser that answers at once
+    // cannot make fetch, claim and startFetches recurse once per page.
+    private static final class AsyncCrawl {
+        private static final int MAX_RETRIES = 3; // Failed fetches of a URL that are tried again before it is given up
+
+        private final String hostName;
+        private final AsyncHtmlParser htmlParser;
+        private final HostRateLimiter hostLimiter;
+        private final AimdLimiter concurrency;
+        private final Set<String> visited = ConcurrentHashMap.newKeySet();
+        private final Queue<String> res = new ConcurrentLinkedQueue<>();
+        private final Queue<String> waiting = new ConcurrentLinkedQueue<>(); // Claimed, but not fetched yet
+        private final Map<String, Integer> failures = new ConcurrentHashMap<>();
+        private final AtomicInteger pending = new AtomicInteger(); // Claimed URLs not finished
+        private final CompletableFuture<Void> done = new CompletableFuture<>();
+
+        AsyncCrawl(String hostName, AsyncHtmlParser htmlParser, HostRateLimiter hostLimiter, AimdLimiter concurrency) {
+            this.hostName = hostName;
+            this.htmlParser = htmlParser;
+            this.hostLimiter = hostLimiter;
+            this.concurrency = concurrency;
+        }
+
+        void claim(String url) {
+            if (!sameHost(url, hostName) || !visited.add(url)) return;
+            res.add(url);
+            pending.incrementAndGet();
+            waiting.add(url);
+            startFetches();
+        }
+
+        // Starts fetches while there are waiting URLs and free slots. Whoever frees a slot calls this again, and a
+        // URL is queued before its claimer asks for a slot, so no URL is left behind.
+        private void startFetches() {
+            while (!waiting.isEmpty()) {
+                if (!concurrency.tryAcquire()) return;
+                String url = waiting.poll();
+                if (url == null) {
+                    concurrency.release(); // Another thread took it; look again
+                    continue;
+                }
+                long delay = hostLimiter.reserve(getHostName(url));
+                if (delay == 0) {
+                    fetch(url);
+                } else {
+                    CompletableFuture.delayedExecutor(delay, TimeUnit.NANOSECONDS).execute(() -> fetch(url));
+                }
+            }
+        }
+
+        private void fetch(String url) {
+            long start = System.nanoTime();
+            CompletableFuture<List<String>> page;
+            try {
+                page = htmlParser.getUrlsAsync(url);
+            } catch (RuntimeException e) {
+                page = CompletableFuture.failedFuture(e);
+            }
+            page.whenCompleteAsync((newUrls, error) -> {
+                try {
+                    completed(url, newUrls, error, System.nanoTime() - start);
+                } catch (Throwable e) {
+                    done.completeExceptionally(e); // The crawl cannot finish, so do not leave the caller waiting
+                }
+            });
+        }
+
+        private void completed(String url, List<String> newUrls, Throwable error, long latencyNanos) {
+            concurrency.release(latencyNanos, error != null);
+            if (error != null && failures.merge(url, 1, Integer::sum) <= MAX_RETRIES) {
+                waiting.add(url); // Retried once the limiter has backed off; still pending
+                startFetches();
+                return;
+            }
+            try {
+                if (newUrls != null) {
+                    for (String newUrl : newUrls) {
+                        claim(newUrl);
+                    }
+                }
+            } finally {
+                if (pending.decrementAndGet() == 0) {
+                    done.complete(null);
+                } else {
+                    startFetches();
+                }
+            }
+        }
+    }
+
+    /**
+     * Multi-threaded web crawler for crawls too large for the heap: the frontier lives in memory-mapped files, the
+     * visited set is a fixed-size Bloom filter, and every URL is handed to sink as soon as it is found instead of
+     * being collected. A Bloom filter false positive skips a URL that was not visited yet.
+     * @param startUrl The starting URL.
+     * @param htmlParser The parser to extract URLs; called from several threads at once.
+     * @param frontier URLs found but not parsed yet; normally empty at the start.
+     * @param visited URLs already found.
+     * @param sink Receives each URL of the same domain once; calls are never concurrent.
+     * @param threads Number of worker threads.
+     * @return The number of URLs passed to sink.
+     */
+    public long crawl(String startUrl, HtmlParser htmlParser, DiskFrontier frontier, UrlBloomFilter visited,
+                      Consumer<String> sink, int threads) {
+        if (threads < 1) throw new IllegalArgumentException("threads must be at least 1");
+        StreamingCrawl crawl = new StreamingCrawl(getHostName(startUrl), htmlParser, frontier, visited, sink);
+        crawl.found(startUrl);
+        Thread[] workers = new Thread[threads];
+        for (int i = 0; i < threads; i++) {
+            workers[i] = new Thread(crawl::work, "crawler-" + i);
+            workers[i].setDaemon(true);
+            workers[i].start();
+        }
+        try {
+            for (Thread worker : workers) {
+                worker.join();
+            }
+        } catch (InterruptedException e) {
+            crawl.stop(null);
+            Thread.currentThread().interrupt(); // Return what was found so far
+        }
+        if (crawl.failure != null) throw crawl.failure;
+        synchronized (crawl.sinkLock) {
+            return crawl.count;
+        }
+    }
+
+    // State of one streaming crawl. Workers take URLs from the frontier under lock and wait there while it is empty
+    // but other workers are still parsing pages that may add to it.
+    private static final class StreamingCrawl {
+        private final String hostName;
+        private final HtmlParser htmlParser;
+        private final DiskFrontier frontier;
+        private final UrlBloomFilter visited;
+        private final Consumer<String> sink;
+        private final Object lock = new Object();
+        private int active; // Workers parsing a page; guarded by lock
+        private boolean stopped; // Guarded by lock
+        private final Object sinkLock = new Object();
+        private long count; // Guarded by sinkLock
+        private volatile RuntimeException failure;
+
+        StreamingCrawl(String hostName, HtmlParser htmlParser, DiskFrontier frontier, UrlBloomFilter visited, Consumer<String> sink) {
+            this.hostName = hostName;
+            this.htmlParser = htmlParser;
+            this.frontier = frontier;
+            this.visited = visited;
+            this.sink = sink;
+        }
+
+        void work() {
+            try {
+                String url;
+                while ((url = next()) != null) {
+                    try {
+                        List<String> newUrls;
+                        try {
+                            newUrls = htmlParser.getUrls(url);
+                        } catch (RuntimeException e) {
+                            continue; // A page that cannot be parsed has no links to follow
+                        }
+                        for (String newUrl : newUrls) {
+                            if (sameHost(newUrl, hostName)) found(newUrl);
+                        }
+                    } finally {
+                        synchronized (lock) {
+                            active--;
+                            if (active == 0) lock.notifyAll(); // Either new URLs or the end of the crawl
+                        }
+                    }
+                }
+            } catch (InterruptedException e) {
+                stop(null);
+            } catch (RuntimeException e) {
+                stop(e); // The sink or the frontier failed
+            }
+        }
+
+        // Next URL to parse, or null once the frontier is empty and no worker can add to it
+        private String next() throws InterruptedException {
+            synchronized (lock) {
+                while (!stopped) {
+                    String url = frontier.poll();
+                    if (url != null) {
+                        active++;
+                        return url;
+                    }
+                    if (active == 0) {
+                        lock.notifyAll();
+                        return null;
+                    }
+                    lock.wait();
+                }
+                return null;
+            }
+        }
+
+        void found(String url) {
+            if (!visited.add(url)) return;
+            synchronized (sinkLock) {
+                sink.accept(url);
+                count++;
+            }
+            synchronized (lock) {
+                frontier.offer(url);
+                lock.notify();
+            }
+        }
+
+        void stop(RuntimeException e) {
+            if (e != null && failure == null) failure = e;
+            synchronized (lock) {
+                stopped = true;
+                lock.notifyAll();
+            }
+        }
+    }
+
+    // State of one concurrent crawl, shared by all its tasks
+    private static final class ConcurrentCrawl {
+        private final String hostName;
+        private final HtmlParser htmlParser;
+        private final ExecutorService executor;
+        private final Set<String> visited = ConcurrentHashMap.newKeySet();
+        private final Queue<String> res = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger pending = new AtomicInteger(); // Tasks submitted but not finished
+        private final CountDownLatch done = new CountDownLatch(1);
+
+        ConcurrentCrawl(String hostName, HtmlParser htmlParser, ExecutorService executor) {
+            this.hostName = hostName;
+            this.htmlParser = htmlParser;
+            this.executor = executor;
+        }
+
+        // Submits a task for url unless it is on another host or another worker got it first
+        void claim(String url) {
+            if (!sameHost(url, hostName) || !visited.add(url)) return;
+            res.add(url);
+            pending.incrementAndGet(); // Before the task can finish, so the count cannot reach zero early
+            try {
+                executor.execute(() -> visit(url));
+            } catch (RejectedExecutionException e) {
+                finish(); // Executor shut down; the page is reported but not followed
+            }
+        }
+
+        private void visit(String url) {
+            try {
+                for (String newUrl : htmlParser.getUrls(url)) {
+                    claim(newUrl);
+                }
+            } catch (RuntimeException e) {
+                // A page that cannot be parsed has no links to follow
+            } finally {
+                finish(); // After the children were claimed, so they are counted first
+            }
+        }
+
+        private void finish() {
+            if (pending.decrementAndGet() == 0) {
+                done.countDown();
+            }
+        }
+    }
     
+    // Whether url is on hostName; a malformed link is not, so one bad link does not cost the rest of its page
+    private static boolean sameHost(String url, String hostName) {
+        try {
+            return getHostName(url).equals(hostName);
+        } catch (RuntimeException e) {
+            return false;
+        }
+    }
+
     /**
      * Extracts the hostname from a given URL.
      * @param url The full URL.
      * @return The hostname of the URL.
      */
-    private String getHostName(String url) {
+    private static String getHostName(String url) {
         url = url.substring(7); // Remove "http://"
         String[] parts = url.split("/");
         return parts[0]; // Extract the domain name